@@ -0,0 +1,307 @@
+package dev.visoftware.artiferrium.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives a headless dedicated server running Artiferrium against a {@link StandInBackend} and
+ * records boot overhead, login-to-kick latency and the tick-time cost of an allowlist refresh.
+ * <p>
+ * The Gradle {@code integrationBenchmark} task starts this harness, waits for it to print
+ * {@link #READY} (server files written, backend listening), then boots the server in the same
+ * run directory. The harness stops the server over RCON when it is done and writes the results
+ * as JSON, so runs from different releases can be compared.
+ */
+public final class IntegrationBenchmark {
+    public static final String READY = "ARTIFERRIUM-BENCHMARK READY";
+
+    private static final Pattern DONE = Pattern.compile("Done \\((\\d+[.,]\\d+)s\\)!");
+    private static final Pattern AVERAGE_TICK = Pattern.compile("Average tick time: ([\\d.,]+) ms");
+    // RCON returns command output with its § colour codes
+    private static final Pattern FORMATTING = Pattern.compile("\\u00a7.");
+    private static final String RCON_PASSWORD = "artiferrium-benchmark";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Map<String, String> options;
+    private final Path serverDir;
+    private final int serverPort;
+    private final int rconPort;
+
+    private IntegrationBenchmark(Map<String, String> options) {
+        this.options = options;
+        this.serverDir = Path.of(require("server-dir")).toAbsolutePath();
+        this.serverPort = Integer.parseInt(options.getOrDefault("server-port", "25599"));
+        this.rconPort = Integer.parseInt(options.getOrDefault("rcon-port", "25598"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+
+        try {
+            new IntegrationBenchmark(options).run();
+        } catch (Exception e) {
+            System.err.println("[benchmark] Failed: " + e);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private void run() throws Exception {
+        int allowedLogins = Integer.parseInt(options.getOrDefault("allowed", "20"));
+        int deniedLogins = Integer.parseInt(options.getOrDefault("denied", "20"));
+        int allowlistSize = Integer.parseInt(options.getOrDefault("allowlist-size", "50000"));
+
+        List<UUID> allowed = new ArrayList<>();
+        for (int i = 0; i < allowedLogins; i++) {
+            allowed.add(LoginClient.offlineUuid(allowedName(i)));
+        }
+
+        try (StandInBackend backend = new StandInBackend(allowed, Math.max(0, allowlistSize - allowedLogins))) {
+            prepareServer(backend);
+            System.out.println(READY);
+            System.out.flush();
+            long bootStart = System.nanoTime();
+
+            double reportedBootSeconds = awaitServerDone();
+            long bootWallMillis = (System.nanoTime() - bootStart) / 1_000_000;
+            log("Server up after %d ms (reported %.3f s)", bootWallMillis, reportedBootSeconds);
+
+            JsonObject results = new JsonObject();
+            results.addProperty("loader", require("loader"));
+            results.addProperty("timestamp", LocalDateTime.now().toString());
+            results.addProperty("javaVersion", System.getProperty("java.version"));
+
+            RconClient rcon = connectRcon();
+            try {
+                Map<String, Long> metrics = parseMetrics(rcon.command("artiferrium stats"));
+
+                JsonObject boot = new JsonObject();
+                boot.addProperty("serverReportedSeconds", reportedBootSeconds);
+                boot.addProperty("wallMillis", bootWallMillis);
+                boot.addProperty("artiferriumInitMillis", metrics.getOrDefault("boot.init_millis", -1L));
+                results.add("boot", boot);
+
+                JsonObject logins = new JsonObject();
+                logins.add("allowed", runLogins(allowedLogins, true));
+                logins.add("denied", runLogins(deniedLogins, false));
+                results.add("logins", logins);
+
+                results.add("allowlistRefresh", measureRefresh(rcon, allowlistSize));
+
+                JsonObject backendStats = new JsonObject();
+                backendStats.addProperty("heartbeats", backend.heartbeats.sum());
+                backendStats.addProperty("allowlistFetches", backend.allowlistFetches.sum());
+                backendStats.addProperty("binaryHeartbeats", backend.binaryHeartbeats.sum());
+                results.add("backend", backendStats);
+            } finally {
+                // Stop the server even if a measurement failed, or the Gradle run would never return
+                log("Stopping server");
+                rcon.command("stop");
+                rcon.close();
+            }
+
+            writeResults(results);
+        }
+    }
+
+    private void prepareServer(StandInBackend backend) throws IOException {
+        Files.createDirectories(serverDir.resolve("config/visoftware"));
+        Files.deleteIfExists(serverDir.resolve("logs/latest.log"));
+        Files.writeString(serverDir.resolve("eula.txt"), "eula=true\n");
+        Files.writeString(serverDir.resolve("server.properties"), String.join("\n",
+            "online-mode=false",
+            "server-port=" + serverPort,
+            "enable-rcon=true",
+            "rcon.port=" + rconPort,
+            "rcon.password=" + RCON_PASSWORD,
+            "level-type=minecraft\\:flat",
+            "generate-structures=false",
+            "max-players=500",
+            "view-distance=4",
+            "simulation-distance=4",
+            "spawn-protection=0",
+            "") );
+        Files.writeString(serverDir.resolve("config/visoftware/artiferrium.toml"), String.join("\n",
+            "[server]",
+            "key = \"benchmark\"",
+            "debug = false",
+            "",
+            "[network]",
+            "endpoints = \"" + backend.getBaseUrl() + "\"",
+            "heartbeat_socket = \"" + (binaryHeartbeat() ? backend.getHeartbeatSocket() : "") + "\"",
+            "",
+            "[admission]",
+            "logins_per_tick = 20",
+            ""));
+    }
+
+    private double awaitServerDone() throws Exception {
+        Path log = serverDir.resolve("logs/latest.log");
+        long deadline = System.currentTimeMillis() + 15 * 60 * 1000;
+        while (System.currentTimeMillis() < deadline) {
+            if (Files.exists(log)) {
+                Matcher matcher = DONE.matcher(Files.readString(log, StandardCharsets.UTF_8));
+                if (matcher.find()) {
+                    return Double.parseDouble(matcher.group(1).replace(',', '.'));
+                }
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("Server did not finish starting within 15 minutes");
+    }
+
+    private RconClient connectRcon() throws Exception {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (true) {
+            try {
+                return new RconClient("127.0.0.1", rconPort, RCON_PASSWORD);
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) throw e;
+                Thread.sleep(250);
+            }
+        }
+    }
+
+    private JsonObject runLogins(int count, boolean allowed) throws IOException {
+        List<Long> latencies = new ArrayList<>();
+        int expected = 0;
+        for (int i = 0; i < count; i++) {
+            String name = allowed ? allowedName(i) : "Denied_" + i;
+            LoginClient.Result result = LoginClient.login("127.0.0.1", serverPort, name, allowed ? 1000 : 10_000);
+
+            if (allowed && result.outcome == LoginClient.Outcome.ADMITTED) {
+                expected++;
+                latencies.add(result.loginNanos);
+            } else if (!allowed && result.outcome == LoginClient.Outcome.KICKED) {
+                expected++;
+                latencies.add(result.endNanos);
+            } else {
+                log("Unexpected outcome for %s: %s", name, result.outcome);
+            }
+        }
+
+        JsonObject summary = new JsonObject();
+        summary.addProperty("count", count);
+        summary.addProperty(allowed ? "admitted" : "kicked", expected);
+        summary.add(allowed ? "loginMillis" : "loginToKickMillis", distribution(latencies));
+        log("%s logins: %d/%d as expected", allowed ? "Allowed" : "Denied", expected, count);
+        return summary;
+    }
+
+    // Samples the average tick time at rest, then while a full allowlist refresh is applied
+    private JsonObject measureRefresh(RconClient rcon, int allowlistSize) throws Exception {
+        List<Double> baseline = sampleTickTime(rcon, 10, 1000);
+        rcon.command("artiferrium reload allowlist api");
+        List<Double> duringRefresh = sampleTickTime(rcon, 40, 250);
+        if (baseline.isEmpty() || duringRefresh.isEmpty()) {
+            throw new IllegalStateException("No tick time samples in /artiferrium stats output; refusing to report MSPT");
+        }
+
+        double baselineMean = mean(baseline);
+        double refreshMean = mean(duringRefresh);
+        JsonObject refresh = new JsonObject();
+        refresh.addProperty("entries", allowlistSize);
+        refresh.addProperty("baselineMsptMean", baselineMean);
+        refresh.addProperty("refreshMsptMean", refreshMean);
+        refresh.addProperty("refreshMsptMax", duringRefresh.stream().mapToDouble(Double::doubleValue).max().orElse(0));
+        refresh.addProperty("msptDelta", refreshMean - baselineMean);
+        log("MSPT %.2f at rest, %.2f during refresh", baselineMean, refreshMean);
+        return refresh;
+    }
+
+    private static List<Double> sampleTickTime(RconClient rcon, int samples, long intervalMillis) throws Exception {
+        List<Double> values = new ArrayList<>();
+        for (int i = 0; i < samples; i++) {
+            Matcher matcher = AVERAGE_TICK.matcher(plain(rcon.command("artiferrium stats")));
+            if (matcher.find()) {
+                values.add(Double.parseDouble(matcher.group(1).replace(',', '.')));
+            }
+            Thread.sleep(intervalMillis);
+        }
+        return values;
+    }
+
+    private static Map<String, Long> parseMetrics(String stats) {
+        Map<String, Long> metrics = new HashMap<>();
+        for (String line : plain(stats).split("\n")) {
+            int colon = line.indexOf(": ");
+            if (colon < 0) continue;
+            try {
+                metrics.put(line.substring(0, colon).trim(), Long.parseLong(line.substring(colon + 2).trim()));
+            } catch (NumberFormatException ignored) {
+                // Not a plain metric line
+            }
+        }
+        return metrics;
+    }
+
+    private static String plain(String text) {
+        return FORMATTING.matcher(text).replaceAll("");
+    }
+
+    private static JsonObject distribution(List<Long> nanos) {
+        JsonObject distribution = new JsonObject();
+        if (nanos.isEmpty()) return distribution;
+
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        distribution.addProperty("p50", sorted.get((sorted.size() - 1) / 2) / 1_000_000.0);
+        distribution.addProperty("p95", sorted.get((int) Math.ceil(sorted.size() * 0.95) - 1) / 1_000_000.0);
+        distribution.addProperty("max", sorted.get(sorted.size() - 1) / 1_000_000.0);
+        return distribution;
+    }
+
+    private static double mean(List<Double> values) {
+        return values.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+    }
+
+    private void writeResults(JsonObject results) throws IOException {
+        Path outputDir = Path.of(require("output"));
+        Files.createDirectories(outputDir);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        String json = GSON.toJson(results);
+        Path file = outputDir.resolve(require("loader") + "-" + stamp + ".json");
+        Files.writeString(file, json);
+        Files.writeString(outputDir.resolve(require("loader") + "-latest.json"), json);
+        log("Results written to %s", file);
+    }
+
+    private boolean binaryHeartbeat() {
+        return Boolean.parseBoolean(options.getOrDefault("binary-heartbeat", "true"));
+    }
+
+    private static String allowedName(int i) {
+        return "Allowed_" + i;
+    }
+
+    private String require(String option) {
+        String value = options.get(option);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing --" + option);
+        }
+        return value;
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.println("[benchmark] " + String.format(format, args));
+    }
+}
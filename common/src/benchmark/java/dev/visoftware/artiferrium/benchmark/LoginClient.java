@@ -0,0 +1,224 @@
+package dev.visoftware.artiferrium.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A scripted offline-mode 1.20.1 client that logs in and reports whether, and how quickly, the
+ * server let it in or kicked it. It speaks only as much of the protocol as a login needs.
+ */
+final class LoginClient {
+    private static final int PROTOCOL_VERSION = 763; // 1.20.1
+    private static final int LOGIN_DISCONNECT = 0x00;
+    private static final int LOGIN_ENCRYPTION_REQUEST = 0x01;
+    private static final int LOGIN_SUCCESS = 0x02;
+    private static final int LOGIN_SET_COMPRESSION = 0x03;
+    private static final int LOGIN_PLUGIN_REQUEST = 0x04;
+    private static final int PLAY_DISCONNECT = 0x1A;
+
+    enum Outcome { ADMITTED, KICKED, TIMED_OUT }
+
+    static final class Result {
+        final Outcome outcome;
+        final long loginNanos;  // until login success, -1 if never reached
+        final long endNanos;    // until the kick, or until the grace period ended for admitted players
+
+        Result(Outcome outcome, long loginNanos, long endNanos) {
+            this.outcome = outcome;
+            this.loginNanos = loginNanos;
+            this.endNanos = endNanos;
+        }
+    }
+
+    private LoginClient() {}
+
+    static UUID offlineUuid(String name) {
+        return UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Logs in as {@code name}. Once in the play state the client keeps reading for
+     * {@code graceMillis}; a disconnect in that window counts as a kick.
+     */
+    static Result login(String host, int port, String name, long graceMillis) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(1000);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+
+            ByteArrayOutputStream handshake = new ByteArrayOutputStream();
+            writeVarInt(handshake, 0x00);
+            writeVarInt(handshake, PROTOCOL_VERSION);
+            writeString(handshake, host);
+            handshake.write(port >>> 8);
+            handshake.write(port);
+            writeVarInt(handshake, 2);
+            writeFrame(out, handshake.toByteArray(), -1);
+
+            UUID uuid = offlineUuid(name);
+            ByteArrayOutputStream loginStart = new ByteArrayOutputStream();
+            writeVarInt(loginStart, 0x00);
+            writeString(loginStart, name);
+            loginStart.write(1);
+            writeLong(loginStart, uuid.getMostSignificantBits());
+            writeLong(loginStart, uuid.getLeastSignificantBits());
+
+            long start = System.nanoTime();
+            int threshold = -1;
+            writeFrame(out, loginStart.toByteArray(), threshold);
+
+            long loginNanos = -1;
+            long deadline = start + 60_000_000_000L;
+            while (true) {
+                if (loginNanos >= 0 && System.nanoTime() - start - loginNanos > graceMillis * 1_000_000) {
+                    return new Result(Outcome.ADMITTED, loginNanos, System.nanoTime() - start);
+                }
+                if (System.nanoTime() > deadline) {
+                    return new Result(Outcome.TIMED_OUT, loginNanos, System.nanoTime() - start);
+                }
+
+                byte[] packet;
+                try {
+                    packet = readFrame(socket, in, threshold);
+                } catch (SocketTimeoutException e) {
+                    continue;
+                } catch (EOFException e) {
+                    return new Result(Outcome.KICKED, loginNanos, System.nanoTime() - start);
+                }
+
+                int[] offset = {0};
+                int id = readVarInt(packet, offset);
+                if (loginNanos < 0) {
+                    switch (id) {
+                        case LOGIN_SET_COMPRESSION -> threshold = readVarInt(packet, offset);
+                        case LOGIN_SUCCESS -> loginNanos = System.nanoTime() - start;
+                        case LOGIN_DISCONNECT -> {
+                            return new Result(Outcome.KICKED, -1, System.nanoTime() - start);
+                        }
+                        case LOGIN_ENCRYPTION_REQUEST ->
+                            throw new IOException("The benchmark server must run with online-mode=false");
+                        case LOGIN_PLUGIN_REQUEST -> {
+                            // Answer "not understood", as a vanilla client does
+                            int messageId = readVarInt(packet, offset);
+                            ByteArrayOutputStream response = new ByteArrayOutputStream();
+                            writeVarInt(response, 0x02);
+                            writeVarInt(response, messageId);
+                            response.write(0);
+                            writeFrame(out, response.toByteArray(), threshold);
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (id == PLAY_DISCONNECT) {
+                    return new Result(Outcome.KICKED, loginNanos, System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    // Only waiting for the first byte may time out; the rest of a frame is read without a short timeout
+    private static byte[] readFrame(Socket socket, DataInputStream in, int threshold) throws IOException {
+        int first = in.read();
+        if (first < 0) throw new EOFException();
+
+        byte[] frame;
+        int timeout = socket.getSoTimeout();
+        socket.setSoTimeout(30_000);
+        try {
+            int length = first & 0x7F;
+            if ((first & 0x80) != 0) {
+                length |= readVarInt(in) << 7;
+            }
+            frame = new byte[length];
+            in.readFully(frame);
+        } finally {
+            socket.setSoTimeout(timeout);
+        }
+        if (threshold < 0) return frame;
+
+        int[] offset = {0};
+        int dataLength = readVarInt(frame, offset);
+        if (dataLength == 0) {
+            byte[] packet = new byte[frame.length - offset[0]];
+            System.arraycopy(frame, offset[0], packet, 0, packet.length);
+            return packet;
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(frame, offset[0], frame.length - offset[0]);
+            byte[] packet = new byte[dataLength];
+            inflater.inflate(packet);
+            return packet;
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed compressed packet", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Packets we send are tiny, so with compression on they always go out uncompressed
+    private static void writeFrame(OutputStream out, byte[] packet, int threshold) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        if (threshold >= 0) {
+            writeVarInt(frame, 0);
+        }
+        frame.write(packet);
+        ByteArrayOutputStream prefixed = new ByteArrayOutputStream();
+        writeVarInt(prefixed, frame.size());
+        frame.writeTo(prefixed);
+        prefixed.writeTo(out);
+        out.flush();
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("VarInt too long");
+    }
+
+    private static int readVarInt(byte[] data, int[] offset) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = data[offset[0]++] & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("VarInt too long");
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int i = 7; i >= 0; i--) {
+            out.write((int) (value >>> (i * 8)));
+        }
+    }
+}
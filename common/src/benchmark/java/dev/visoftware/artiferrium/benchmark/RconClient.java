@@ -0,0 +1,60 @@
+package dev.visoftware.artiferrium.benchmark;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/** Just enough of the Source RCON protocol to run console commands on the benchmark server. */
+final class RconClient implements AutoCloseable {
+    private static final int TYPE_COMMAND = 2;
+    private static final int TYPE_LOGIN = 3;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private int requestId;
+
+    RconClient(String host, int port, String password) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setSoTimeout(30_000);
+        this.in = new DataInputStream(socket.getInputStream());
+        this.out = socket.getOutputStream();
+        if (send(TYPE_LOGIN, password) == null) {
+            throw new IOException("RCON authentication failed");
+        }
+    }
+
+    /** @return the command's output with formatting codes removed */
+    String command(String command) throws IOException {
+        String response = send(TYPE_COMMAND, command);
+        return response == null ? "" : response.replaceAll("§.", "");
+    }
+
+    private String send(int type, String payload) throws IOException {
+        int id = ++requestId;
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer packet = ByteBuffer.allocate(14 + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        packet.putInt(10 + body.length).putInt(id).putInt(type).put(body).put((byte) 0).put((byte) 0);
+        out.write(packet.array());
+        out.flush();
+
+        byte[] header = new byte[12];
+        in.readFully(header);
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+        int length = headerBuffer.getInt();
+        int responseId = headerBuffer.getInt();
+        byte[] responseBody = new byte[length - 8];
+        in.readFully(responseBody);
+        if (responseId == -1) return null;
+        return new String(responseBody, 0, Math.max(0, responseBody.length - 2), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,209 @@
+package dev.visoftware.artiferrium.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Minimal local replacement for the VI Software API: authenticates any key as a private server,
+ * accepts heartbeats and analytics, and serves a fixed allowlist whose body is encoded once.
+ * Heartbeats are also accepted in the compact binary form on a second loopback port.
+ */
+final class StandInBackend implements AutoCloseable {
+    private static final String BASE = "/services/runtime/server";
+    private static final String VERSION = "benchmark-1";
+    private static final byte[] ALLOWLIST_VERSION = VERSION.getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ServerSocket binaryServer;
+    private final byte[] allowlistBody;
+    final LongAdder heartbeats = new LongAdder();
+    final LongAdder allowlistFetches = new LongAdder();
+    final LongAdder binaryHeartbeats = new LongAdder();
+
+    StandInBackend(List<UUID> allowed, int fillerEntries) throws IOException {
+        JsonArray users = new JsonArray();
+        for (UUID uuid : allowed) {
+            users.add(uuid.toString());
+        }
+        // Random filler makes the list as large as a busy private server's
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < fillerEntries; i++) {
+            users.add(new UUID(random.nextLong(), random.nextLong()).toString());
+        }
+        JsonObject allowlist = ok();
+        allowlist.add("allowedUsers", users);
+        allowlist.addProperty("version", VERSION);
+        this.allowlistBody = allowlist.toString().getBytes(StandardCharsets.UTF_8);
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+        server.createContext(BASE + "/authenticate", exchange -> respond(exchange, authenticateBody()));
+        server.createContext(BASE + "/heartbreath", exchange -> {
+            heartbeats.increment();
+            JsonObject body = ok();
+            body.addProperty("allowlistVersion", VERSION);
+            respond(exchange, body.toString().getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext(BASE + "/fetchallowlist", exchange -> {
+            allowlistFetches.increment();
+            respond(exchange, allowlistBody);
+        });
+        server.createContext(BASE + "/analytics", exchange -> respond(exchange, ok().toString().getBytes(StandardCharsets.UTF_8)));
+        server.setExecutor(Executors.newFixedThreadPool(4, r -> {
+            Thread thread = new Thread(r, "StandInBackend");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+
+        this.binaryServer = new ServerSocket(0, 64, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptBinary, "StandInBackend-Binary");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    String getHeartbeatSocket() {
+        return "tcp://127.0.0.1:" + binaryServer.getLocalPort();
+    }
+
+    private void acceptBinary() {
+        while (!binaryServer.isClosed()) {
+            try {
+                Socket socket = binaryServer.accept();
+                Thread handler = new Thread(() -> serveBinary(socket), "StandInBackend-Binary-Connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    // Speaks the server side of BinaryHeartbeatChannel: hello, then heartbeat frames until the socket closes
+    private void serveBinary(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            boolean helloed = false;
+            while (true) {
+                byte[] frame = new byte[in.readUnsignedShort()];
+                in.readFully(frame);
+                DataInputStream payload = new DataInputStream(new ByteArrayInputStream(frame));
+                int version = payload.readUnsignedByte();
+                int type = payload.readUnsignedByte();
+                if (version != 1) {
+                    writeBinaryReply(out, 1, 0, "Unsupported version " + version);
+                } else if (type == 0) {
+                    payload.readUTF();
+                    payload.readUTF();
+                    helloed = true;
+                    writeBinaryReply(out, 0, 0, null);
+                } else if (!helloed) {
+                    writeBinaryReply(out, 2, 0, "Unknown session");
+                } else {
+                    payload.readLong();
+                    int sequence = payload.readInt();
+                    payload.skipBytes(6);
+                    payload.skipBytes(payload.readUnsignedShort());
+                    binaryHeartbeats.increment();
+                    writeBinaryReply(out, 0, sequence, null);
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private static void writeBinaryReply(DataOutputStream out, int status, int sequence, String message) throws IOException {
+        byte[] text = message != null ? message.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 + text.length);
+        DataOutputStream reply = new DataOutputStream(buffer);
+        reply.writeByte(1);
+        reply.writeByte(status);
+        reply.writeInt(sequence);
+        reply.writeByte(0);
+        reply.writeShort(0xFFFF);
+        reply.writeShort(0xFFFF);
+        reply.writeShort(text.length);
+        reply.write(text);
+        reply.writeByte(ALLOWLIST_VERSION.length);
+        reply.write(ALLOWLIST_VERSION);
+
+        out.writeShort(buffer.size());
+        buffer.writeTo(out);
+        out.flush();
+    }
+
+    private static byte[] authenticateBody() {
+        JsonObject serverInfo = new JsonObject();
+        serverInfo.addProperty("id", "benchmark");
+        serverInfo.addProperty("name", "Artiferrium Benchmark");
+        serverInfo.addProperty("description", "");
+        serverInfo.addProperty("private", true);
+        serverInfo.addProperty("owner_uuid", new UUID(0, 0).toString());
+        serverInfo.addProperty("owner_name", "benchmark");
+        serverInfo.addProperty("lang", "en");
+
+        JsonObject body = ok();
+        body.addProperty("sessionKey", "benchmark-session-key");
+        body.addProperty("sessionId", "benchmark-session-id");
+        body.add("server", serverInfo);
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static JsonObject ok() {
+        JsonObject body = new JsonObject();
+        body.addProperty("status", "OK");
+        return body;
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        try (exchange; InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        try {
+            binaryServer.close();
+        } catch (IOException ignored) {
+            // Shutting down anyway
+        }
+    }
+}
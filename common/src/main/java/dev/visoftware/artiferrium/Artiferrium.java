@@ -1,14 +1,28 @@
 package dev.visoftware.artiferrium;
 
+import dev.architectury.event.events.common.TickEvent;
 import dev.architectury.platform.Platform;
+import dev.visoftware.artiferrium.api.ServerInfo;
+import dev.visoftware.artiferrium.logging.Banner;
+import dev.visoftware.artiferrium.model.AccessDecision;
 import dev.visoftware.artiferrium.model.ServerData;
 import dev.visoftware.artiferrium.service.HeartbeatService;
 import dev.visoftware.artiferrium.service.AuthenticationService;
 import dev.visoftware.artiferrium.service.AllowlistService;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import dev.visoftware.artiferrium.service.ControlSocket;
+import dev.visoftware.artiferrium.service.HealthEndpoint;
+import dev.visoftware.artiferrium.service.MainThreadExecutor;
+import dev.visoftware.artiferrium.service.RosterTracker;
+import dev.visoftware.artiferrium.service.ServiceRuntime;
+import dev.visoftware.artiferrium.service.StatsHistory;
+import dev.visoftware.artiferrium.service.SessionAnalytics;
+import dev.visoftware.artiferrium.service.StatusTracker;
 import dev.visoftware.artiferrium.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Files;
 import java.util.List;
@@ -24,8 +38,12 @@ public final class Artiferrium {
     private static boolean hasWarnedHeartbeatFailure = false;
     private static final String CONFIG_FOLDER = "visoftware";
     private static final String CONFIG_FILE = "artiferrium.toml";
+    private static final String ANALYTICS_FOLDER = "analytics";
+    private static final String DIAGNOSTICS_FOLDER = "diagnostics";
+    private static final String HISTORY_FILE = "stats-history.rrd";
+    private static final String JFR_SETTINGS_FILE = "artiferrium.jfc";
     private static ServerData serverData;
-    private static net.minecraft.server.MinecraftServer currentServer;
+    private static volatile net.minecraft.server.MinecraftServer currentServer;
 
     private static boolean isOfflineMode() {
         if (!"SERVER".equals(Platform.getEnvironment().name())) {
@@ -52,20 +70,43 @@ public final class Artiferrium {
         return false;
     }
 
+    private static Path configFolder() {
+        return Platform.getConfigFolder().resolve(CONFIG_FOLDER);
+    }
+
+    public static Path getDiagnosticsFolder() {
+        return configFolder().resolve(DIAGNOSTICS_FOLDER);
+    }
+
     public static void init() {
         try {
-            Path configFolder = Platform.getConfigFolder().resolve(CONFIG_FOLDER);
+            Path configFolder = configFolder();
             Files.createDirectories(configFolder);
 
             Path configPath = configFolder.resolve(CONFIG_FILE);
             Config.get().load(configPath);
 
             configureLogging();
+            writeJfrSettings(configFolder);
 
             if ("SERVER".equals(Platform.getEnvironment().name())) {
+                // Started before authentication so probes can tell "booting" from "dead"
+                if (Config.get().isHealthEndpoint()) {
+                    HealthEndpoint.start(Config.get().getHealthPort());
+                }
+                long initStart = System.nanoTime();
                 authenticateAndInitialize();
+                ArtiferriumMetrics.get().counter("boot.init_millis").add((System.nanoTime() - initStart) / 1_000_000);
+                if (Config.get().isStatsHistory()) {
+                    StatsHistory.get().start(configFolder.resolve(HISTORY_FILE));
+                }
+                if (!Config.get().getControlSocket().isEmpty()) {
+                    ControlSocket.start(configFolder.resolve(Config.get().getControlSocket()));
+                }
             }
 
+            TickEvent.SERVER_POST.register(server -> MainThreadExecutor.get().drain());
+
             // Register commands [TODO: Slash autocomplet dosnt work yet, Need to investigate]
             dev.visoftware.artiferrium.command.ArtifferiumCommands.register();
         } catch (IOException e) {
@@ -74,6 +115,19 @@ public final class Artiferrium {
         }
     }
 
+    // The profile has to be a file for -XX:StartFlightRecording to find it, so copy it out of the jar
+    private static void writeJfrSettings(Path configFolder) {
+        Path target = configFolder.resolve(JFR_SETTINGS_FILE);
+        if (Files.exists(target)) return;
+        try (InputStream in = Artiferrium.class.getResourceAsStream("/" + JFR_SETTINGS_FILE)) {
+            if (in != null) {
+                Files.copy(in, target);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Failed to write {}: {}", JFR_SETTINGS_FILE, e.getMessage());
+        }
+    }
+
     private static void configureLogging() {
         org.apache.logging.log4j.core.LoggerContext ctx =
             (org.apache.logging.log4j.core.LoggerContext) org.apache.logging.log4j.LogManager.getContext(false);
@@ -89,17 +143,8 @@ public final class Artiferrium {
     }
 
     private static void shutdownWithError(String message) {
-        LOGGER.error("╔════════════════════════════════════════════════════════════════╗");
-        LOGGER.error("║                        ARTIFERRIUM CRITICAL ERROR                         ║");
-        LOGGER.error("║───────────────────────────────��───────────────────────────────────────────║");
-        String[] lines = message.split("\\n");
-        for (String line : lines) {
-            String paddedLine = String.format("║ %-69s ║", line);
-            LOGGER.error(paddedLine);
-        }
-        LOGGER.error("║                                                                           ║");
-        LOGGER.error("║                     THE SERVER WILL NOW SHUT DOWN                         ║");
-        LOGGER.error("╚═══════════════════════════════════════════════════════════════════════════╝");
+        HealthEndpoint.markFatal(message.split("\\n")[0]);
+        Banner.error(LOGGER, "ARTIFERRIUM CRITICAL ERROR", message, "", "THE SERVER WILL NOW SHUT DOWN");
 
         try {
             Thread.sleep(2000);
@@ -123,25 +168,14 @@ public final class Artiferrium {
 
                 serverData = new ServerData(response);
                 isPrivateServer = serverData.isPrivate();
+                StatusTracker.get().serverInfoUpdated(ServerInfo.of(serverData));
 
-                LOGGER.info("╔════════════════════════════════════════════════════════════════╗");
-                LOGGER.info("║                   ARTIFERRIUM SERVER INFO                      ║");
-                LOGGER.info("║--------------------------------------------------------      ║");
-                LOGGER.info("║ Server Name: {}", String.format("%-52s ║", serverData.getName()));
-                if (!serverData.getDescription().isEmpty()) {
-                    String desc = serverData.getDescription();
-                    while (desc.length() > 52) {
-                        LOGGER.info("║ {}", String.format("%-62s ║", desc.substring(0, 52)));
-                        desc = desc.substring(52);
-                    }
-                    if (!desc.isEmpty()) {
-                        LOGGER.info("║ {}", String.format("%-62s ║", desc));
-                    }
-                }
-                LOGGER.info("║ Owner: {}", String.format("%-57s ║", serverData.getOwnerName()));
-                LOGGER.info("║ Language: {}", String.format("%-54s ║", serverData.getLanguage()));
-                LOGGER.info("║ Type: {}", String.format("%-58s ║", serverData.isPrivate() ? "Private" : "Public"));
-                LOGGER.info("╚════════════════════════════════════════════════════════════════╝");
+                Banner.info(LOGGER, "ARTIFERRIUM SERVER INFO",
+                    "Server Name: " + serverData.getName(),
+                    serverData.getDescription().isEmpty() ? null : serverData.getDescription(),
+                    "Owner: " + serverData.getOwnerName(),
+                    "Language: " + serverData.getLanguage(),
+                    "Type: " + (serverData.isPrivate() ? "Private" : "Public"));
 
                 String sessionKey = response.get("sessionKey").getAsString();
                 String sessionId = response.get("sessionId").getAsString();
@@ -151,19 +185,19 @@ public final class Artiferrium {
                 }
 
                 heartbeatService = new HeartbeatService(sessionKey, sessionId);
+                if (Config.get().isSessionAnalytics()) {
+                    SessionAnalytics.get().start(configFolder().resolve(ANALYTICS_FOLDER));
+                }
 
                 if (isPrivateServer) {
                     if (isOfflineMode()) {
-                        LOGGER.warn("╔═══════════════════════════════════���════════════════════════════╗");
-                        LOGGER.warn("║                     ARTIFERRIUM WARNING                        ║");
-                        LOGGER.warn("║--------------------------------------------------------      ║");
-                        LOGGER.warn("║ Server is running in offline mode!                           ║");
-                        LOGGER.warn("║ The allowlist will not provide effective access control      ║");
-                        LOGGER.warn("║ as players can join with any username in offline mode.       ║");
-                        LOGGER.warn("║                                                              ║");
-                        LOGGER.warn("║ Consider enabling online mode in server.properties           ║");
-                        LOGGER.warn("║ for proper player authentication and allowlist control.      ║");
-                        LOGGER.warn("╚════════════════════════════════════════════════════════════════╝");
+                        Banner.warn(LOGGER, "ARTIFERRIUM WARNING",
+                            "Server is running in offline mode!",
+                            "The allowlist will not provide effective access control",
+                            "as players can join with any username in offline mode.",
+                            "",
+                            "Consider enabling online mode in server.properties",
+                            "for proper player authentication and allowlist control.");
                     }
 
                     allowlistService = new AllowlistService(
@@ -209,13 +243,49 @@ public final class Artiferrium {
         return allowlistService.isAllowed(playerUuid);
     }
 
+    // Join handlers use this one; it compares UUID bits directly and allocates nothing
+    public static boolean isPlayerAllowed(java.util.UUID playerUuid) {
+        if (!isPrivateServer || allowlistService == null) return true;
+        boolean allowed = allowlistService.isAllowed(playerUuid);
+        if (!allowed) StatsHistory.get().recordDenied();
+        return allowed;
+    }
+
+    /** Also applies the allowlist's network rules to the connection's address under the configured policy. */
+    public static boolean isPlayerAllowed(java.util.UUID playerUuid, java.net.SocketAddress remoteAddress) {
+        return checkPlayerAccess(playerUuid, remoteAddress).isAllowed();
+    }
+
+    /** Like {@link #isPlayerAllowed(java.util.UUID, java.net.SocketAddress)}, but says why a player was denied. */
+    public static AccessDecision checkPlayerAccess(java.util.UUID playerUuid, java.net.SocketAddress remoteAddress) {
+        if (!isPrivateServer || allowlistService == null) return AccessDecision.ALLOWED;
+        java.net.InetAddress address = remoteAddress instanceof java.net.InetSocketAddress inet ? inet.getAddress() : null;
+        AccessDecision decision = allowlistService.checkAccess(playerUuid, address);
+        if (!decision.isAllowed()) StatsHistory.get().recordDenied();
+        return decision;
+    }
+
+    /** The disconnect message for a denied player. */
+    public static String getKickMessage(AccessDecision decision) {
+        return decision == AccessDecision.NETWORK_DENIED
+            ? Config.get().getNetworkKickMessage()
+            : Config.get().getKickMessage();
+    }
+
+    public static void onPlayerJoin(java.util.UUID playerUuid) {
+        RosterTracker.get().playerJoined(playerUuid);
+        SessionAnalytics.get().playerJoined(playerUuid);
+        StatsHistory.get().recordJoin();
+    }
+
+    public static void onPlayerLeave(java.util.UUID playerUuid) {
+        RosterTracker.get().playerLeft(playerUuid);
+        SessionAnalytics.get().playerLeft(playerUuid);
+    }
+
     public static void shutdown() {
-        if (allowlistService != null) {
-            allowlistService.shutdown();
-        }
-        if (heartbeatService != null) {
-            heartbeatService.stopHeartbeatScheduler();
-        }
+        // Stops the heartbeat (sending a final offline heartbeat) and allowlist services in parallel
+        ServiceRuntime.get().shutdown();
     }
 
     public static void updateServerData(int playerCount, long heartbeat) {
@@ -233,6 +303,11 @@ public final class Artiferrium {
         currentServer = server;
     }
 
+    public static float getAverageTickMillis() {
+        net.minecraft.server.MinecraftServer server = currentServer;
+        return server != null ? server.getAverageTickTime() : 0.0f;
+    }
+
     public static int getCurrentPlayerCount() {
         if (currentServer != null) {
             return currentServer.getPlayerList().getPlayers().size();
@@ -0,0 +1,49 @@
+package dev.visoftware.artiferrium.api;
+
+/**
+ * Immutable summary of the allowlist currently enforced by Artiferrium.
+ * The version increases by one every time the set of allowed players changes.
+ */
+public final class AllowlistInfo {
+    public static final AllowlistInfo EMPTY = new AllowlistInfo(0, 0L, 0L, 0L);
+
+    private final int size;
+    private final long version;
+    private final long lastApiSyncMillis;
+    private final long lastCacheLoadMillis;
+
+    public AllowlistInfo(int size, long version, long lastApiSyncMillis, long lastCacheLoadMillis) {
+        this.size = size;
+        this.version = version;
+        this.lastApiSyncMillis = lastApiSyncMillis;
+        this.lastCacheLoadMillis = lastCacheLoadMillis;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /** @return epoch millis of the last successful fetch from VI Software, or 0 if none yet */
+    public long getLastApiSyncMillis() {
+        return lastApiSyncMillis;
+    }
+
+    /** @return epoch millis of the last load from the local cache file, or 0 if none yet */
+    public long getLastCacheLoadMillis() {
+        return lastCacheLoadMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "AllowlistInfo{" +
+                "size=" + size +
+                ", version=" + version +
+                ", lastApiSyncMillis=" + lastApiSyncMillis +
+                ", lastCacheLoadMillis=" + lastCacheLoadMillis +
+                '}';
+    }
+}
@@ -0,0 +1,10 @@
+package dev.visoftware.artiferrium.api;
+
+@FunctionalInterface
+public interface AllowlistListener {
+    /**
+     * Called after the set of allowed players changed. Invoked on an Artiferrium background
+     * thread; implementations must not block.
+     */
+    void onAllowlistChanged(AllowlistInfo previous, AllowlistInfo current);
+}
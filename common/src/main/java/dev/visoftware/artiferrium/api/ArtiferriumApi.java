@@ -0,0 +1,33 @@
+package dev.visoftware.artiferrium.api;
+
+import dev.visoftware.artiferrium.service.StatusTracker;
+
+/**
+ * Entry point for other mods that want to observe Artiferrium. All methods are thread-safe and
+ * non-blocking; reads never take a lock and return immutable snapshots.
+ */
+public final class ArtiferriumApi {
+    private ArtiferriumApi() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static ArtiferriumStatus getStatus() {
+        return StatusTracker.get().current();
+    }
+
+    public static void addAllowlistListener(AllowlistListener listener) {
+        StatusTracker.get().addAllowlistListener(listener);
+    }
+
+    public static void removeAllowlistListener(AllowlistListener listener) {
+        StatusTracker.get().removeAllowlistListener(listener);
+    }
+
+    public static void addConnectionListener(ConnectionListener listener) {
+        StatusTracker.get().addConnectionListener(listener);
+    }
+
+    public static void removeConnectionListener(ConnectionListener listener) {
+        StatusTracker.get().removeConnectionListener(listener);
+    }
+}
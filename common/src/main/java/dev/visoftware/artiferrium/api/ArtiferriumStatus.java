@@ -0,0 +1,95 @@
+package dev.visoftware.artiferrium.api;
+
+/**
+ * Immutable, versioned snapshot of Artiferrium's state. A new instance is published every time
+ * anything changes, so a reference obtained from {@link ArtiferriumApi#getStatus()} never changes
+ * underneath the caller.
+ */
+public final class ArtiferriumStatus {
+    public static final ArtiferriumStatus INITIAL = new ArtiferriumStatus(
+        0L, null, ConnectionState.UNAUTHENTICATED, 0L, 0, 0, AllowlistInfo.EMPTY);
+
+    private final long version;
+    private final ServerInfo server;
+    private final ConnectionState connectionState;
+    private final long lastHeartbeatMillis;
+    private final int consecutiveHeartbeatFailures;
+    private final int playerCount;
+    private final AllowlistInfo allowlist;
+
+    public ArtiferriumStatus(long version, ServerInfo server, ConnectionState connectionState,
+                             long lastHeartbeatMillis, int consecutiveHeartbeatFailures,
+                             int playerCount, AllowlistInfo allowlist) {
+        this.version = version;
+        this.server = server;
+        this.connectionState = connectionState;
+        this.lastHeartbeatMillis = lastHeartbeatMillis;
+        this.consecutiveHeartbeatFailures = consecutiveHeartbeatFailures;
+        this.playerCount = playerCount;
+        this.allowlist = allowlist;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /** @return the server registration, or {@code null} before authentication completed */
+    public ServerInfo getServer() {
+        return server;
+    }
+
+    public ConnectionState getConnectionState() {
+        return connectionState;
+    }
+
+    /** @return epoch millis of the last successful heartbeat, or 0 if none yet */
+    public long getLastHeartbeatMillis() {
+        return lastHeartbeatMillis;
+    }
+
+    public int getConsecutiveHeartbeatFailures() {
+        return consecutiveHeartbeatFailures;
+    }
+
+    /** @return the player count reported with the last successful heartbeat */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public AllowlistInfo getAllowlist() {
+        return allowlist;
+    }
+
+    public ArtiferriumStatus withServer(ServerInfo server) {
+        return new ArtiferriumStatus(version + 1, server, connectionState, lastHeartbeatMillis,
+            consecutiveHeartbeatFailures, playerCount, allowlist);
+    }
+
+    public ArtiferriumStatus withHeartbeatSuccess(int playerCount, long heartbeatMillis) {
+        return new ArtiferriumStatus(version + 1, server, ConnectionState.CONNECTED, heartbeatMillis,
+            0, playerCount, allowlist);
+    }
+
+    public ArtiferriumStatus withHeartbeatFailure() {
+        return new ArtiferriumStatus(version + 1, server, ConnectionState.DISCONNECTED, lastHeartbeatMillis,
+            consecutiveHeartbeatFailures + 1, playerCount, allowlist);
+    }
+
+    public ArtiferriumStatus withAllowlist(AllowlistInfo allowlist) {
+        return new ArtiferriumStatus(version + 1, server, connectionState, lastHeartbeatMillis,
+            consecutiveHeartbeatFailures, playerCount, allowlist);
+    }
+
+    @Override
+    public String toString() {
+        return "ArtiferriumStatus{" +
+                "version=" + version +
+                ", server=" + server +
+                ", connectionState=" + connectionState +
+                ", lastHeartbeatMillis=" + lastHeartbeatMillis +
+                ", consecutiveHeartbeatFailures=" + consecutiveHeartbeatFailures +
+                ", playerCount=" + playerCount +
+                ", allowlist=" + allowlist +
+                '}';
+    }
+}
@@ -0,0 +1,10 @@
+package dev.visoftware.artiferrium.api;
+
+@FunctionalInterface
+public interface ConnectionListener {
+    /**
+     * Called when the connection to VI Software changes state. Invoked on an Artiferrium
+     * background thread; implementations must not block.
+     */
+    void onConnectionStateChanged(ConnectionState previous, ConnectionState current);
+}
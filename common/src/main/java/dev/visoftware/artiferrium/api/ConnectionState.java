@@ -0,0 +1,10 @@
+package dev.visoftware.artiferrium.api;
+
+public enum ConnectionState {
+    /** The server has not authenticated with VI Software yet. */
+    UNAUTHENTICATED,
+    /** The last heartbeat reached VI Software. */
+    CONNECTED,
+    /** The last heartbeat failed; Artiferrium keeps retrying in the background. */
+    DISCONNECTED
+}
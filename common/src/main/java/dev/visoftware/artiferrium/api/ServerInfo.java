@@ -0,0 +1,71 @@
+package dev.visoftware.artiferrium.api;
+
+import dev.visoftware.artiferrium.model.ServerData;
+
+/**
+ * Immutable view of the server registration returned by VI Software on authentication.
+ */
+public final class ServerInfo {
+    private final String id;
+    private final String name;
+    private final String description;
+    private final boolean isPrivate;
+    private final String ownerUuid;
+    private final String ownerName;
+    private final String language;
+
+    public ServerInfo(String id, String name, String description, boolean isPrivate,
+                      String ownerUuid, String ownerName, String language) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.isPrivate = isPrivate;
+        this.ownerUuid = ownerUuid;
+        this.ownerName = ownerName;
+        this.language = language;
+    }
+
+    public static ServerInfo of(ServerData data) {
+        return new ServerInfo(data.getId(), data.getName(), data.getDescription(), data.isPrivate(),
+            data.getOwnerUuid(), data.getOwnerName(), data.getLanguage());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isPrivate() {
+        return isPrivate;
+    }
+
+    public String getOwnerUuid() {
+        return ownerUuid;
+    }
+
+    public String getOwnerName() {
+        return ownerName;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerInfo{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", isPrivate=" + isPrivate +
+                ", ownerName='" + ownerName + '\'' +
+                ", language='" + language + '\'' +
+                '}';
+    }
+}
@@ -3,10 +3,23 @@ package dev.visoftware.artiferrium.command;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.context.CommandContext;
 import dev.architectury.event.events.common.CommandRegistrationEvent;
+import dev.visoftware.artiferrium.Artiferrium;
+import dev.visoftware.artiferrium.http.ApiClient;
+import dev.visoftware.artiferrium.http.CircuitBreaker;
+import dev.visoftware.artiferrium.http.Endpoint;
+import dev.visoftware.artiferrium.login.AdmissionController;
+import dev.visoftware.artiferrium.login.LoginTracer;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
 import dev.visoftware.artiferrium.service.AllowlistService;
+import dev.visoftware.artiferrium.service.DiagnosticsDump;
+import dev.visoftware.artiferrium.service.MainThreadExecutor;
+import dev.visoftware.artiferrium.service.StatsHistory;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.network.chat.Component;
 
+import java.util.List;
+import java.util.Map;
+
 import static net.minecraft.commands.Commands.literal;
 
 public class ArtifferiumCommands {
@@ -25,41 +38,191 @@ public class ArtifferiumCommands {
                             )
                         )
                     )
+                    .then(literal("stats")
+                        .executes(ArtifferiumCommands::showStats)
+                        .then(literal("logins")
+                            .executes(ArtifferiumCommands::showSlowestLogins)
+                        )
+                    )
+                    .then(literal("trends")
+                        .executes(context -> showTrends(context, StatsHistory.Resolution.MINUTE))
+                        .then(literal("10s")
+                            .executes(context -> showTrends(context, StatsHistory.Resolution.TEN_SECONDS))
+                        )
+                        .then(literal("1m")
+                            .executes(context -> showTrends(context, StatsHistory.Resolution.MINUTE))
+                        )
+                        .then(literal("1h")
+                            .executes(context -> showTrends(context, StatsHistory.Resolution.HOUR))
+                        )
+                    )
+                    .then(literal("diagnostics")
+                        .then(literal("dump")
+                            .executes(ArtifferiumCommands::dumpDiagnostics)
+                        )
+                    )
             );
         });
     }
 
+    // The API call and cache read run off the server thread; feedback comes back through the tick executor
     private static int reloadAllowlistFromApi(CommandContext<CommandSourceStack> context) {
-        try {
-            context.getSource().sendSuccess(() ->
-                Component.literal("§6Warning: Frequent API refreshes may result in rate limits."), false);
+        CommandSourceStack source = context.getSource();
+        source.sendSuccess(() ->
+            Component.literal("§6Warning: Frequent API refreshes may result in rate limits."), false);
 
-            AllowlistService.refreshCachedAllowlist();
+        AllowlistService.refreshCachedAllowlistAsync().whenComplete((ignored, error) ->
+            MainThreadExecutor.get().execute(() -> {
+                if (error == null) {
+                    source.sendSuccess(() ->
+                        Component.literal("§aSuccessfully refreshed the allowlist cache from VI Software."), true);
+                } else {
+                    source.sendFailure(
+                        Component.literal("§cFailed to refresh allowlist: " + error.getMessage()));
+                }
+            }));
+        return Command.SINGLE_SUCCESS;
+    }
 
-            context.getSource().sendSuccess(() ->
-                Component.literal("§aSuccessfully refreshed the allowlist cache from VI Software."), true);
-            return Command.SINGLE_SUCCESS;
-        } catch (Exception e) {
-            context.getSource().sendFailure(
-                Component.literal("§cFailed to refresh allowlist: " + e.getMessage()));
+    private static int showStats(CommandContext<CommandSourceStack> context) {
+        Map<String, Long> metrics = ArtiferriumMetrics.get().snapshot();
+
+        StringBuilder message = new StringBuilder("§6Artiferrium stats:");
+        metrics.forEach((name, value) -> message.append("\n§7").append(name).append(": §f").append(value));
+
+        long receivedWire = metrics.getOrDefault("http.bytes_received_wire", 0L);
+        long receivedDecoded = metrics.getOrDefault("http.bytes_received_decoded", 0L);
+        if (receivedDecoded > 0) {
+            message.append(String.format("\n§7Download savings from compression: §a%.1f%%",
+                100.0 * (receivedDecoded - receivedWire) / receivedDecoded));
+        }
+
+        for (Endpoint endpoint : ApiClient.get().getEndpoints()) {
+            CircuitBreaker breaker = endpoint.getCircuitBreaker();
+            String state = switch (breaker.getState()) {
+                case CLOSED -> "§aclosed";
+                case HALF_OPEN -> "§ehalf-open";
+                case OPEN -> "§copen, probe in " + breaker.getSecondsUntilProbe() + "s";
+            };
+            message.append(String.format("\n§7Endpoint %s: circuit %s§7, latency §f%.0f ms",
+                endpoint.getBaseUrl(), state, endpoint.getLatencyNanos() / 1_000_000.0));
+        }
+        message.append("\n§7In-flight requests: §f").append(ApiClient.get().getInFlightRequests())
+            .append("/").append(ApiClient.get().getMaxConcurrentRequests());
+        message.append("\n§7Logins waiting for admission: §f").append(AdmissionController.get().getQueueLength());
+        message.append("\n§7Server-thread tasks queued: §f").append(MainThreadExecutor.get().getQueueDepth());
+        message.append(String.format("\n§7Average tick time: §f%.2f ms", Artiferrium.getAverageTickMillis()));
+
+        context.getSource().sendSuccess(() -> Component.literal(message.toString()), false);
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static final String SPARK_BARS = "▁▂▃▄▅▆▇█";
+
+    private static int showTrends(CommandContext<CommandSourceStack> context, StatsHistory.Resolution resolution) {
+        if (!StatsHistory.get().isEnabled()) {
+            context.getSource().sendFailure(Component.literal("§cStats history is disabled ([analytics] history)."));
             return 0;
         }
+
+        int window = resolution.getDefaultWindow();
+        StringBuilder message = new StringBuilder(String.format("§6Trends over the last %s (%s per column):",
+            formatDuration((long) window * resolution.getStepSeconds()), resolution.getId()));
+        for (StatsHistory.Series series : StatsHistory.Series.values()) {
+            StatsHistory.Window data = StatsHistory.get().window(series, resolution, window);
+            float[] values = data.getValues();
+            float[] maxima = data.getMaxima();
+
+            float min = Float.NaN, high = Float.NaN, max = Float.NaN, latest = Float.NaN;
+            double sum = 0;
+            int present = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (Float.isNaN(values[i])) continue;
+                min = Float.isNaN(min) ? values[i] : Math.min(min, values[i]);
+                high = Float.isNaN(high) ? values[i] : Math.max(high, values[i]);
+                max = Float.isNaN(max) ? maxima[i] : Math.max(max, maxima[i]);
+                latest = values[i];
+                sum += values[i];
+                present++;
+            }
+
+            message.append(String.format("\n§7%-13s §f", series.getLabel()));
+            if (present == 0) {
+                message.append("§8no data");
+                continue;
+            }
+            // Counters are drawn from zero; gauges use their own range so small changes stay visible
+            float low = series.isCounter() ? 0 : min;
+            for (float value : values) {
+                if (Float.isNaN(value)) {
+                    message.append("§8·§f");
+                } else {
+                    int level = high > low ? Math.round((value - low) / (high - low) * (SPARK_BARS.length() - 1)) : 0;
+                    message.append(SPARK_BARS.charAt(Math.max(0, Math.min(SPARK_BARS.length() - 1, level))));
+                }
+            }
+            message.append(series.isCounter()
+                ? String.format(" §7total §f%.0f §7busiest 10s §f%.0f", sum, max)
+                : String.format(" §7avg §f%.1f §7max §f%.1f §7now §f%.1f", sum / present, max, latest));
+        }
+
+        context.getSource().sendSuccess(() -> Component.literal(message.toString()), false);
+        return Command.SINGLE_SUCCESS;
     }
 
-    private static int reloadAllowlistFromCache(CommandContext<CommandSourceStack> context) {
-        try {
-            context.getSource().sendSuccess(() ->
-                Component.literal("§6Warning: Cache will be overwritten on next API refresh"), false);
+    private static String formatDuration(long seconds) {
+        if (seconds % 86_400 == 0) return seconds / 86_400 + "d";
+        if (seconds % 3600 == 0) return seconds / 3600 + "h";
+        return seconds / 60 + "m";
+    }
 
-            AllowlistService.reloadFromCache();
+    // Collecting thread stacks and file stats can take a while, so the dump is written off the server thread
+    private static int dumpDiagnostics(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        DiagnosticsDump.writeAsync(Artiferrium.getDiagnosticsFolder()).whenComplete((file, error) ->
+            MainThreadExecutor.get().execute(() -> {
+                if (error == null) {
+                    source.sendSuccess(() -> Component.literal("§aWrote diagnostics to " + file), false);
+                } else {
+                    source.sendFailure(Component.literal("§cFailed to write diagnostics: " + error.getMessage()));
+                }
+            }));
+        return Command.SINGLE_SUCCESS;
+    }
 
-            context.getSource().sendSuccess(() ->
-                Component.literal("§aSuccessfully reloaded allowlist from local cache at config/visoftware/allowlist-cache.json"), true);
+    private static int showSlowestLogins(CommandContext<CommandSourceStack> context) {
+        List<LoginTracer.CompletedLogin> logins = LoginTracer.get().getSlowestLogins();
+        if (logins.isEmpty()) {
+            context.getSource().sendSuccess(() -> Component.literal("§6No traced logins yet."), false);
             return Command.SINGLE_SUCCESS;
-        } catch (Exception e) {
-            context.getSource().sendFailure(
-                Component.literal("§cFailed to reload allowlist from cache: " + e.getMessage()));
-            return 0;
         }
+
+        StringBuilder message = new StringBuilder("§6Slowest logins:");
+        for (LoginTracer.CompletedLogin login : logins) {
+            message.append(String.format("\n§f%s §7%.0f ms", login.getPlayerName(), login.getTotalNanos() / 1_000_000.0));
+            login.getPhaseNanos().forEach((phase, nanos) ->
+                message.append(String.format(" §7%s=§f%.0f", phase.getMetricName(), nanos / 1_000_000.0)));
+        }
+
+        context.getSource().sendSuccess(() -> Component.literal(message.toString()), false);
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int reloadAllowlistFromCache(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        source.sendSuccess(() ->
+            Component.literal("§6Warning: Cache will be overwritten on next API refresh"), false);
+
+        AllowlistService.reloadFromCacheAsync().whenComplete((ignored, error) ->
+            MainThreadExecutor.get().execute(() -> {
+                if (error == null) {
+                    source.sendSuccess(() ->
+                        Component.literal("§aSuccessfully reloaded allowlist from local cache at config/visoftware/allowlist-cache.json"), true);
+                } else {
+                    source.sendFailure(
+                        Component.literal("§cFailed to reload allowlist from cache: " + error.getMessage()));
+                }
+            }));
+        return Command.SINGLE_SUCCESS;
     }
 }
@@ -1,17 +1,50 @@
 package dev.visoftware.artiferrium.config;
 
+import dev.visoftware.artiferrium.constants.ApiConstants;
+import dev.visoftware.artiferrium.model.AccessPolicy;
+
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class Config {
     private static final Config INSTANCE = new Config();
     private String serverKey = "";
     private boolean debug = false;
     private String kickMessage = "You are not allowed to join this private server";
+    private boolean compressRequests = false;
+    private List<String> endpoints = List.of(ApiConstants.BASE_URL);
+    private double hedgePercentile = 95;
+    private int maxConcurrentRequests = 4;
+    private boolean adaptiveIntervals = true;
+    private boolean sharedAllowlistCache = false;
+    // Per user, so another account on the host cannot claim the directory first
+    private Path sharedAllowlistCacheDir = Path.of(System.getProperty("java.io.tmpdir"),
+        "artiferrium-shared-" + System.getProperty("user.name").replaceAll("[^A-Za-z0-9_-]", "_"));
+    private boolean admissionEnabled = true;
+    private int admissionLoginsPerTick = 2;
+    private float admissionMsptBudget = 45.0f;
+    private int admissionMaxWaitSeconds = 120;
+    private long mainThreadBudgetNanos = 1_000_000;
+    private boolean rosterSync = true;
+    private String heartbeatSocket = "";
+    private boolean sessionAnalytics = true;
+    private boolean statsHistory = true;
+    private boolean healthEndpoint = false;
+    private int healthPort = 25590;
+    private String controlSocket = "";
+    private boolean loginTracing = true;
+    private int reservedSlots = 0;
+    private boolean staffBypassFull = true;
+    private String reservedSlotsMessage = "The server is full; the remaining slots are reserved";
+    private int slowestLoginsKept = 10;
+    private AccessPolicy accessPolicy = AccessPolicy.UUID_AND_NETWORK;
+    private String networkKickMessage = "You are not allowed to join this private server from your network";
     private final Map<String, Map<String, String>> sections = new HashMap<>();
 
     private Config() {} // Singleton
@@ -32,6 +65,126 @@ public class Config {
         return kickMessage;
     }
 
+    public String getNetworkKickMessage() {
+        return networkKickMessage;
+    }
+
+    public boolean isCompressRequests() {
+        return compressRequests;
+    }
+
+    public List<String> getEndpoints() {
+        return endpoints;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public boolean isAdaptiveIntervals() {
+        return adaptiveIntervals;
+    }
+
+    public boolean isSharedAllowlistCache() {
+        return sharedAllowlistCache;
+    }
+
+    public Path getSharedAllowlistCacheDir() {
+        return sharedAllowlistCacheDir;
+    }
+
+    public boolean isAdmissionEnabled() {
+        return admissionEnabled;
+    }
+
+    public int getAdmissionLoginsPerTick() {
+        return admissionLoginsPerTick;
+    }
+
+    public float getAdmissionMsptBudget() {
+        return admissionMsptBudget;
+    }
+
+    public int getAdmissionMaxWaitSeconds() {
+        return admissionMaxWaitSeconds;
+    }
+
+    public long getMainThreadBudgetNanos() {
+        return mainThreadBudgetNanos;
+    }
+
+    public boolean isRosterSync() {
+        return rosterSync;
+    }
+
+    public String getHeartbeatSocket() {
+        return heartbeatSocket;
+    }
+
+    public boolean isSessionAnalytics() {
+        return sessionAnalytics;
+    }
+
+    public boolean isStatsHistory() {
+        return statsHistory;
+    }
+
+    public boolean isHealthEndpoint() {
+        return healthEndpoint;
+    }
+
+    public int getHealthPort() {
+        return healthPort;
+    }
+
+    public String getControlSocket() {
+        return controlSocket;
+    }
+
+    public boolean isLoginTracing() {
+        return loginTracing;
+    }
+
+    public int getSlowestLoginsKept() {
+        return slowestLoginsKept;
+    }
+
+    public int getReservedSlots() {
+        return reservedSlots;
+    }
+
+    public boolean isStaffBypassFull() {
+        return staffBypassFull;
+    }
+
+    public String getReservedSlotsMessage() {
+        return reservedSlotsMessage;
+    }
+
+    public AccessPolicy getAccessPolicy() {
+        return accessPolicy;
+    }
+
+    /** The loaded config by section, with the server key and any secret-looking values masked. */
+    public Map<String, Map<String, String>> getRedactedSections() {
+        Map<String, Map<String, String>> redacted = new TreeMap<>();
+        sections.forEach((section, values) -> {
+            Map<String, String> copy = new TreeMap<>();
+            values.forEach((key, value) -> copy.put(key, isSecret(key) && !value.isEmpty() ? "<redacted>" : value));
+            redacted.put(section, copy);
+        });
+        return redacted;
+    }
+
+    private static boolean isSecret(String key) {
+        String lower = key.toLowerCase();
+        return lower.equals("key") || lower.contains("secret") || lower.contains("password") || lower.contains("token");
+    }
+
     public void load(Path configPath) throws IOException {
         if (!Files.exists(configPath)) {
             createDefaultConfig(configPath);
@@ -65,6 +218,86 @@ public class Config {
             debug = Boolean.parseBoolean(serverSection.getOrDefault("debug", "false"));
             kickMessage = serverSection.getOrDefault("kick_message", kickMessage);
         }
+
+        Map<String, String> networkSection = sections.get("network");
+        if (networkSection != null) {
+            compressRequests = Boolean.parseBoolean(networkSection.getOrDefault("compress_requests", "false"));
+            hedgePercentile = Double.parseDouble(networkSection.getOrDefault("hedge_percentile", "95"));
+            maxConcurrentRequests = Math.max(1, Integer.parseInt(networkSection.getOrDefault("max_concurrent_requests", "4")));
+
+            List<String> configuredEndpoints = new ArrayList<>();
+            for (String endpoint : networkSection.getOrDefault("endpoints", ApiConstants.BASE_URL).split(",")) {
+                if (!endpoint.isBlank()) configuredEndpoints.add(endpoint.trim());
+            }
+            if (!configuredEndpoints.isEmpty()) {
+                endpoints = List.copyOf(configuredEndpoints);
+            }
+            adaptiveIntervals = Boolean.parseBoolean(networkSection.getOrDefault("adaptive_intervals", "true"));
+            rosterSync = Boolean.parseBoolean(networkSection.getOrDefault("roster_sync", "true"));
+            heartbeatSocket = networkSection.getOrDefault("heartbeat_socket", "").trim();
+            String scheme = heartbeatSocket.contains("://") ? heartbeatSocket.substring(0, heartbeatSocket.indexOf("://")) : "";
+            if (!heartbeatSocket.isEmpty() && !scheme.equalsIgnoreCase("tls") && !scheme.equalsIgnoreCase("tcp")) {
+                throw new IllegalArgumentException("Unknown heartbeat_socket '" + heartbeatSocket + "', expected tls://host:port or tcp://host:port");
+            }
+        }
+
+        Map<String, String> allowlistSection = sections.get("allowlist");
+        if (allowlistSection != null) {
+            sharedAllowlistCache = Boolean.parseBoolean(allowlistSection.getOrDefault("shared_cache", "false"));
+            String sharedDir = allowlistSection.getOrDefault("shared_cache_dir", "");
+            if (!sharedDir.isEmpty()) {
+                sharedAllowlistCacheDir = Path.of(sharedDir);
+            }
+        }
+
+        Map<String, String> networkRulesSection = sections.get("network_rules");
+        if (networkRulesSection != null) {
+            accessPolicy = AccessPolicy.fromId(networkRulesSection.getOrDefault("policy", "uuid_and_network"));
+            networkKickMessage = networkRulesSection.getOrDefault("kick_message", networkKickMessage);
+        }
+
+        Map<String, String> analyticsSection = sections.get("analytics");
+        if (analyticsSection != null) {
+            sessionAnalytics = Boolean.parseBoolean(analyticsSection.getOrDefault("enabled", "true"));
+            statsHistory = Boolean.parseBoolean(analyticsSection.getOrDefault("history", "true"));
+        }
+
+        Map<String, String> healthSection = sections.get("health");
+        if (healthSection != null) {
+            healthEndpoint = Boolean.parseBoolean(healthSection.getOrDefault("enabled", "false"));
+            healthPort = Integer.parseInt(healthSection.getOrDefault("port", "25590"));
+        }
+
+        Map<String, String> controlSection = sections.get("control");
+        if (controlSection != null) {
+            controlSocket = controlSection.getOrDefault("socket", "");
+        }
+
+        Map<String, String> admissionSection = sections.get("admission");
+        if (admissionSection != null) {
+            admissionEnabled = Boolean.parseBoolean(admissionSection.getOrDefault("enabled", "true"));
+            admissionLoginsPerTick = Math.max(1, Integer.parseInt(admissionSection.getOrDefault("logins_per_tick", "2")));
+            admissionMsptBudget = Float.parseFloat(admissionSection.getOrDefault("mspt_budget", "45"));
+            admissionMaxWaitSeconds = Integer.parseInt(admissionSection.getOrDefault("max_wait_seconds", "120"));
+        }
+
+        Map<String, String> slotsSection = sections.get("slots");
+        if (slotsSection != null) {
+            reservedSlots = Math.max(0, Integer.parseInt(slotsSection.getOrDefault("reserved", "0")));
+            staffBypassFull = Boolean.parseBoolean(slotsSection.getOrDefault("staff_bypass_full", "true"));
+            reservedSlotsMessage = slotsSection.getOrDefault("full_message", reservedSlotsMessage);
+        }
+
+        Map<String, String> tracingSection = sections.get("tracing");
+        if (tracingSection != null) {
+            loginTracing = Boolean.parseBoolean(tracingSection.getOrDefault("login_phases", "true"));
+            slowestLoginsKept = Integer.parseInt(tracingSection.getOrDefault("slowest_logins", "10"));
+        }
+
+        Map<String, String> mainThreadSection = sections.get("main_thread");
+        if (mainThreadSection != null) {
+            mainThreadBudgetNanos = Long.parseLong(mainThreadSection.getOrDefault("budget_micros", "1000")) * 1000;
+        }
     }
 
     private void createDefaultConfig(Path configPath) throws IOException {
@@ -79,6 +312,84 @@ public class Config {
             debug = false
             # Message shown to players who are not allowed to join the private server
             kick_message = "You are not allowed to join this private server"
+
+            [network]
+            # Gzip request bodies sent to VI Software (responses are always negotiated)
+            compress_requests = false
+            # Comma-separated API endpoints; the fastest healthy one is used and the others serve as failover
+            endpoints = "https://api.visoftware.dev"
+            # Latency percentile after which an allowlist fetch is also sent to a second endpoint (0 disables)
+            hedge_percentile = 95
+            # Upper bound on concurrent calls to VI Software; further calls fail fast instead of queueing
+            max_concurrent_requests = 4
+            # Stretch heartbeat/allowlist intervals while the server lags or is empty, shorten them after changes
+            adaptive_intervals = true
+            # Report who is online with each heartbeat (joins/leaves only, plus periodic snapshots)
+            roster_sync = true
+            # Send heartbeats in a compact binary form over one persistent connection (tls://host:port,
+            # or tcp://host:port without encryption);
+            # empty uses HTTPS only, which is also the fallback whenever the socket is unavailable
+            heartbeat_socket = ""
+
+            [allowlist]
+            # Share one allowlist between all instances of this server running on the same host
+            shared_cache = false
+            # Directory for the shared cache; empty uses a per-user directory in the system temp directory.
+            # It must belong to the server's user and be closed to other users (0700)
+            shared_cache_dir = ""
+
+            [network_rules]
+            # How IP range (CIDR) rules synced with the allowlist combine with the player check:
+            # "uuid_and_network" (both must pass), "uuid_or_network" (either one) or "uuid_only" (ignore ranges)
+            policy = "uuid_and_network"
+            # Message shown to allowlisted players turned away because of the network they connect from
+            kick_message = "You are not allowed to join this private server from your network"
+
+            [analytics]
+            # Upload session lengths, peak concurrency and returning players with the heartbeat
+            enabled = true
+            # Keep a local history of players, heartbeat latency, tick time and joins for /artiferrium trends
+            history = true
+
+            [health]
+            # Serve /live and /ready on 127.0.0.1 for orchestrators and container health checks
+            enabled = false
+            port = 25590
+
+            [control]
+            # Unix domain socket for ops tooling: status, metrics, refreshes and allowlist changes.
+            # Empty disables it; relative paths are resolved against config/visoftware. The socket's directory
+            # must belong to the server's user and be closed to other users (0700); it is created that way
+            # when missing, e.g. socket = "control/artiferrium.sock"
+            socket = ""
+
+            [admission]
+            # Pace logins during join storms; operators are admitted first
+            enabled = true
+            # Logins admitted per tick while the server is within its MSPT budget
+            logins_per_tick = 2
+            # Above this average tick time only one login is admitted every 10 ticks
+            mspt_budget = 45
+            # Queued players are disconnected with their position after waiting this long
+            max_wait_seconds = 120
+
+            [slots]
+            # Player slots held back for VIP and staff allowlist tiers once the server fills up
+            reserved = 0
+            # Let staff join even when the server is at its player limit
+            staff_bypass_full = true
+            # Shown to players turned away because only reserved slots are left
+            full_message = "The server is full; the remaining slots are reserved"
+
+            [tracing]
+            # Time each login phase; see /artiferrium stats and /artiferrium stats logins
+            login_phases = true
+            # How many of the slowest logins to keep for /artiferrium stats logins (0 disables)
+            slowest_logins = 10
+
+            [main_thread]
+            # Time per tick Artiferrium may spend on server-thread work; the rest waits for the next tick
+            budget_micros = 1000
             """;
         Files.writeString(configPath, defaultConfig);
     }
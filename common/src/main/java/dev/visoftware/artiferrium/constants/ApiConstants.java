@@ -1,12 +1,15 @@
 package dev.visoftware.artiferrium.constants;
 
 public final class ApiConstants {
+    // Default endpoint; additional ones can be configured under [network] endpoints
     public static final String BASE_URL = "https://api.visoftware.dev";
 
-    public static final String SERVER_RUNTIME_BASE = BASE_URL + "/services/runtime/server";
+    // Paths are resolved against whichever endpoint the ApiClient selects
+    public static final String SERVER_RUNTIME_BASE = "/services/runtime/server";
     public static final String SERVER_AUTH_ENDPOINT = SERVER_RUNTIME_BASE + "/authenticate";
     public static final String SERVER_HEARTBEAT_ENDPOINT = SERVER_RUNTIME_BASE + "/heartbreath";
     public static final String SERVER_ALLOWLIST_ENDPOINT = SERVER_RUNTIME_BASE + "/fetchallowlist";
+    public static final String SERVER_ANALYTICS_ENDPOINT = SERVER_RUNTIME_BASE + "/analytics";
 
     private ApiConstants() {
         throw new UnsupportedOperationException("Utility class");
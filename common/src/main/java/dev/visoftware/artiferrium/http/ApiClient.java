@@ -0,0 +1,421 @@
+package dev.visoftware.artiferrium.http;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import dev.visoftware.artiferrium.config.Config;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Shared HTTP client for all calls to the VI Software API. Each call goes to the fastest healthy
+ * configured endpoint. Idempotent calls fail over to the next one on connection errors or gateway
+ * failures; other calls only when no connection was made, since the backend may already have
+ * applied them. Idempotent calls are also hedged: if the first endpoint is slower than its usual latency percentile,
+ * a second request races it on the runner-up endpoint.
+ * <p>
+ * Every endpoint has its own {@link CircuitBreaker}, and a bulkhead caps how many calls may be in
+ * flight at once. When no endpoint will accept a call, it fails immediately with an
+ * {@link ApiUnavailableException} instead of waiting for a connect timeout.
+ * <p>
+ * Responses are decompressed while they are parsed, so compressed payloads are never buffered
+ * as a whole.
+ */
+public final class ApiClient {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final ApiClient INSTANCE = new ApiClient();
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final long DEFAULT_HEDGE_DELAY_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long MIN_HEDGE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long BULKHEAD_WAIT_MILLIS = 500;
+
+    private final HttpClient client;
+    private final Gson gson;
+    private final List<Endpoint> endpoints;
+    private final double hedgePercentile;
+    private final int maxConcurrentRequests;
+    private final Semaphore bulkhead;
+    private final LongAdder requests;
+    private final LongAdder failovers;
+    private final LongAdder hedgedRequests;
+    private final LongAdder hedgeWins;
+    private final LongAdder rejectedCircuitOpen;
+    private final LongAdder rejectedBulkhead;
+    private final LongAdder compressedResponses;
+    private final LongAdder bytesReceivedWire;
+    private final LongAdder bytesReceivedDecoded;
+    private final LongAdder bytesSentWire;
+    private final LongAdder bytesSentRaw;
+
+    private ApiClient() {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.gson = new Gson();
+
+        List<Endpoint> configured = new ArrayList<>();
+        for (String url : Config.get().getEndpoints()) {
+            configured.add(new Endpoint(url));
+        }
+        this.endpoints = List.copyOf(configured);
+        this.hedgePercentile = Config.get().getHedgePercentile();
+        this.maxConcurrentRequests = Config.get().getMaxConcurrentRequests();
+        this.bulkhead = new Semaphore(maxConcurrentRequests, true);
+
+        ArtiferriumMetrics metrics = ArtiferriumMetrics.get();
+        this.requests = metrics.counter("http.requests");
+        this.failovers = metrics.counter("http.failovers");
+        this.hedgedRequests = metrics.counter("http.hedged_requests");
+        this.hedgeWins = metrics.counter("http.hedge_wins");
+        this.rejectedCircuitOpen = metrics.counter("http.rejected_circuit_open");
+        this.rejectedBulkhead = metrics.counter("http.rejected_bulkhead");
+        this.compressedResponses = metrics.counter("http.responses_compressed");
+        this.bytesReceivedWire = metrics.counter("http.bytes_received_wire");
+        this.bytesReceivedDecoded = metrics.counter("http.bytes_received_decoded");
+        this.bytesSentWire = metrics.counter("http.bytes_sent_wire");
+        this.bytesSentRaw = metrics.counter("http.bytes_sent_raw");
+    }
+
+    public static ApiClient get() {
+        return INSTANCE;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public int getInFlightRequests() {
+        return maxConcurrentRequests - bulkhead.availablePermits();
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public ApiResponse send(ApiRequest request) throws IOException, InterruptedException {
+        if (!bulkhead.tryAcquire(BULKHEAD_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            rejectedBulkhead.increment();
+            throw new ApiUnavailableException("VI Software API call " + request + " rejected: "
+                + maxConcurrentRequests + " requests already in flight");
+        }
+
+        try {
+            return sendWithFailover(request);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private ApiResponse sendWithFailover(ApiRequest request) throws IOException, InterruptedException {
+        List<Endpoint> candidates = rankedEndpoints();
+        Set<Endpoint> tried = new HashSet<>();
+        IOException lastFailure = null;
+
+        for (int i = 0; i < candidates.size(); i++) {
+            Endpoint endpoint = candidates.get(i);
+            if (tried.contains(endpoint) || !endpoint.getCircuitBreaker().tryAcquire()) continue;
+
+            Endpoint backup = null;
+            if (request.isIdempotent() && hedgePercentile > 0) {
+                for (int j = i + 1; j < candidates.size() && backup == null; j++) {
+                    if (candidates.get(j).getCircuitBreaker().getState() == CircuitBreaker.State.CLOSED) {
+                        backup = candidates.get(j);
+                    }
+                }
+            }
+
+            if (lastFailure != null) {
+                failovers.increment();
+                LOGGER.debug("{} failing over to {}: {}", request, endpoint, lastFailure.getMessage());
+            }
+
+            try {
+                return backup != null
+                    ? sendHedged(request, endpoint, backup, tried)
+                    : sendTo(request, endpoint, tried);
+            } catch (ApiUnavailableException e) {
+                throw e;
+            } catch (IOException e) {
+                if (!request.isIdempotent() && !neverReached(e)) throw e;
+                lastFailure = e;
+            }
+        }
+
+        if (lastFailure != null) throw lastFailure;
+
+        rejectedCircuitOpen.increment();
+        long nextProbe = endpoints.stream()
+                .mapToLong(e -> e.getCircuitBreaker().getSecondsUntilProbe())
+                .min()
+                .orElse(0);
+        throw new ApiUnavailableException("VI Software API unavailable: circuit open for all "
+            + endpoints.size() + " endpoint(s), next probe in " + nextProbe + "s");
+    }
+
+    // Healthy endpoints fastest first, then the ones in back-off as a last resort
+    private List<Endpoint> rankedEndpoints() {
+        List<Endpoint> ranked = new ArrayList<>(endpoints);
+        ranked.sort(Comparator.comparing((Endpoint e) -> !e.isHealthy()).thenComparingDouble(Endpoint::score));
+        return ranked;
+    }
+
+    private ApiResponse sendTo(ApiRequest request, Endpoint endpoint, Set<Endpoint> tried)
+            throws IOException, InterruptedException {
+        tried.add(endpoint);
+        return read(await(attempt(request, endpoint)));
+    }
+
+    private ApiResponse sendHedged(ApiRequest request, Endpoint primary, Endpoint backup, Set<Endpoint> tried)
+            throws IOException, InterruptedException {
+        tried.add(primary);
+        CompletableFuture<HttpResponse<InputStream>> first = attempt(request, primary);
+
+        long hedgeDelay = primary.latencyPercentile(hedgePercentile);
+        hedgeDelay = hedgeDelay < 0 ? DEFAULT_HEDGE_DELAY_NANOS : Math.max(hedgeDelay, MIN_HEDGE_DELAY_NANOS);
+        try {
+            return read(first.get(hedgeDelay, TimeUnit.NANOSECONDS));
+        } catch (InterruptedException e) {
+            first.cancel(true);
+            throw e;
+        } catch (TimeoutException e) {
+            // Slower than usual, race a second copy below
+        } catch (ExecutionException e) {
+            IOException failure = unwrap(e);
+            if (!backup.getCircuitBreaker().tryAcquire()) throw failure;
+            failovers.increment();
+            LOGGER.debug("{} via {} failed, failing over to {}: {}", request, primary, backup, failure.getMessage());
+            return sendTo(request, backup, tried);
+        }
+
+        if (!backup.getCircuitBreaker().tryAcquire()) {
+            return read(await(first));
+        }
+
+        tried.add(backup);
+        hedgedRequests.increment();
+        LOGGER.debug("{} via {} exceeded {} ms, hedging via {}", request, primary,
+            TimeUnit.NANOSECONDS.toMillis(hedgeDelay), backup);
+        CompletableFuture<HttpResponse<InputStream>> second = attempt(request, backup);
+
+        Served served;
+        try {
+            served = await(firstSuccessful(
+                first.thenApply(response -> new Served(primary, response)),
+                second.thenApply(response -> new Served(backup, response))));
+        } catch (InterruptedException e) {
+            first.cancel(true);
+            second.cancel(true);
+            throw e;
+        }
+        if (served.endpoint == backup) {
+            hedgeWins.increment();
+        }
+        return read(served.response);
+    }
+
+    private static final class Served {
+        final Endpoint endpoint;
+        final HttpResponse<InputStream> response;
+
+        Served(Endpoint endpoint, HttpResponse<InputStream> response) {
+            this.endpoint = endpoint;
+            this.response = response;
+        }
+    }
+
+    // Thrown when the request could not even be built or handed to the client
+    private static final class NotSentException extends IOException {
+        NotSentException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    // The backend never saw a request that failed before it had a connection
+    private static boolean neverReached(IOException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof NotSentException || t instanceof ConnectException || t instanceof HttpConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> attempt(ApiRequest request, Endpoint endpoint) {
+        requests.increment();
+        bytesSentRaw.add(request.getRawBodyLength());
+        bytesSentWire.add(request.getWireBodyLength());
+
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> sent;
+        try {
+            HttpRequest httpRequest = request.toHttpRequest(endpoint, ACCEPT_ENCODING);
+            sent = client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (RuntimeException e) {
+            // Nothing was dispatched, so this says nothing about the endpoint; give back a half-open probe
+            endpoint.getCircuitBreaker().release();
+            return CompletableFuture.failedFuture(new NotSentException("Could not send " + request + " to " + endpoint, e));
+        }
+
+        CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+        sent.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                // The caller gave up; that says nothing about the endpoint, and the connection must be freed
+                if (response != null) closeQuietly(response.body());
+                endpoint.getCircuitBreaker().release();
+            } else if (error != null) {
+                endpoint.recordFailure();
+                result.completeExceptionally(error);
+            } else if (response.statusCode() == 502 || response.statusCode() == 503 || response.statusCode() == 504) {
+                closeQuietly(response.body());
+                endpoint.recordFailure();
+                result.completeExceptionally(new IOException(
+                    "Endpoint " + endpoint + " returned status " + response.statusCode()));
+            } else {
+                endpoint.recordSuccess(System.nanoTime() - start);
+                if (!result.complete(response)) closeQuietly(response.body());
+            }
+        });
+        // Cancelling the attempt aborts the exchange itself
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) sent.cancel(true);
+        });
+        return result;
+    }
+
+    private static CompletableFuture<Served> firstSuccessful(CompletableFuture<Served> a, CompletableFuture<Served> b) {
+        CompletableFuture<Served> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<Served> candidate : List.of(a, b)) {
+            candidate.whenComplete((served, error) -> {
+                if (error == null) {
+                    // The loser's connection is only released once its body is closed
+                    if (!winner.complete(served)) {
+                        closeQuietly(served.response.body());
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        return winner;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException io ? io : new IOException(cause);
+    }
+
+    private ApiResponse read(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("identity");
+        long start = System.nanoTime();
+        LongAdder bodyBytes = new LongAdder();
+        try (InputStream body = new CountingInputStream(decode(response.body(), encoding), bodyBytes)) {
+            if (response.statusCode() != 200) {
+                String text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                return new ApiResponse(response.statusCode(), null, text, bodyBytes.sum(), System.nanoTime() - start);
+            }
+
+            try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+                JsonObject json = gson.fromJson(reader, JsonObject.class);
+                return new ApiResponse(response.statusCode(), json, null, bodyBytes.sum(), System.nanoTime() - start);
+            }
+        }
+    }
+
+    private InputStream decode(InputStream raw, String encoding) throws IOException {
+        InputStream wire = new CountingInputStream(raw, bytesReceivedWire);
+        InputStream decoded;
+
+        switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> {
+                compressedResponses.increment();
+                decoded = new GZIPInputStream(wire, 8192);
+            }
+            case "deflate" -> {
+                compressedResponses.increment();
+                decoded = inflate(wire);
+            }
+            case "identity", "" -> decoded = wire;
+            default -> {
+                wire.close();
+                throw new IOException("Unsupported Content-Encoding: " + encoding);
+            }
+        }
+
+        return new CountingInputStream(decoded, bytesReceivedDecoded);
+    }
+
+    // "deflate" is meant to be zlib-wrapped, but some servers send raw deflate; sniff the header
+    private static InputStream inflate(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        byte[] header = pushback.readNBytes(2);
+        pushback.unread(header);
+
+        boolean zlib = header.length == 2
+                && (header[0] & 0x0F) == 8
+                && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(pushback, inflater, 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // Nothing useful to do with a failed close of a discarded response
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package dev.visoftware.artiferrium.http;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import dev.visoftware.artiferrium.config.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Endpoint-independent description of an API call. The {@link ApiClient} turns it into an
+ * {@link HttpRequest} for whichever endpoint it picks, possibly more than once.
+ */
+public final class ApiRequest {
+    private static final Gson GSON = new Gson();
+    private static final int COMPRESSION_THRESHOLD = 1024; // bytes; smaller bodies are not worth it
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(15);
+
+    private final String method;
+    private final String path;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private byte[] body;
+    private int rawBodyLength;
+    private boolean idempotent;
+    private Duration timeout = DEFAULT_TIMEOUT;
+
+    private ApiRequest(String method, String path) {
+        this.method = method;
+        this.path = path;
+    }
+
+    public static ApiRequest get(String path) {
+        return new ApiRequest("GET", path).idempotent();
+    }
+
+    public static ApiRequest post(String path) {
+        return new ApiRequest("POST", path);
+    }
+
+    public ApiRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public ApiRequest timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /** Marks the request as safe to send more than once, which allows hedging. */
+    public ApiRequest idempotent() {
+        this.idempotent = true;
+        return this;
+    }
+
+    /**
+     * Attaches a JSON body, gzip-compressed when {@code compress_requests} is enabled in the
+     * config and the body is large enough to benefit.
+     */
+    public ApiRequest jsonBody(JsonObject json) {
+        return jsonBody(json, Config.get().isCompressRequests());
+    }
+
+    /** Attaches a JSON body, gzip-compressed when {@code compress} is set and it is large enough. */
+    public ApiRequest jsonBody(JsonObject json, boolean compress) {
+        byte[] raw = GSON.toJson(json).getBytes(StandardCharsets.UTF_8);
+        byte[] wire = raw;
+
+        if (compress && raw.length >= COMPRESSION_THRESHOLD) {
+            wire = gzip(raw);
+            headers.put("Content-Encoding", "gzip");
+        }
+
+        this.body = wire;
+        this.rawBodyLength = raw.length;
+        return this;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    int getRawBodyLength() {
+        return rawBodyLength;
+    }
+
+    int getWireBodyLength() {
+        return body != null ? body.length : 0;
+    }
+
+    HttpRequest toHttpRequest(Endpoint endpoint, String acceptEncoding) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(endpoint.getBaseUrl() + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Accept-Encoding", acceptEncoding);
+        headers.forEach(builder::header);
+
+        HttpRequest.BodyPublisher publisher = body != null
+                ? HttpRequest.BodyPublishers.ofByteArray(body)
+                : HttpRequest.BodyPublishers.noBody();
+        return builder.method(method, publisher).build();
+    }
+
+    private static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory gzip failed", e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path;
+    }
+}
@@ -0,0 +1,48 @@
+package dev.visoftware.artiferrium.http;
+
+import com.google.gson.JsonObject;
+
+public final class ApiResponse {
+    private final int statusCode;
+    private final JsonObject json;
+    private final String text;
+    private final long bodyBytes;
+    private final long readNanos;
+
+    ApiResponse(int statusCode, JsonObject json, String text, long bodyBytes, long readNanos) {
+        this.statusCode = statusCode;
+        this.json = json;
+        this.text = text;
+        this.bodyBytes = bodyBytes;
+        this.readNanos = readNanos;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    /** @return the parsed body of a 200 response, or {@code null} for any other status */
+    public JsonObject json() {
+        return json;
+    }
+
+    /** Decoded size of the response body. */
+    public long bodyBytes() {
+        return bodyBytes;
+    }
+
+    /** Time spent reading, decompressing and parsing the body after the headers arrived. */
+    public long readNanos() {
+        return readNanos;
+    }
+
+    public String body() {
+        if (text != null) return text;
+        return json != null ? json.toString() : "";
+    }
+
+    @Override
+    public String toString() {
+        return body();
+    }
+}
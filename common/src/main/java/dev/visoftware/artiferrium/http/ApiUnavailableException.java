@@ -0,0 +1,13 @@
+package dev.visoftware.artiferrium.http;
+
+import java.io.IOException;
+
+/**
+ * Thrown without any network I/O when every endpoint's circuit is open or too many requests are
+ * already in flight.
+ */
+public class ApiUnavailableException extends IOException {
+    public ApiUnavailableException(String message) {
+        super(message);
+    }
+}
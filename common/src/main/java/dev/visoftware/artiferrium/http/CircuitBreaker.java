@@ -0,0 +1,100 @@
+package dev.visoftware.artiferrium.http;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classic closed / open / half-open breaker. After {@link #FAILURE_THRESHOLD} consecutive failures
+ * calls are rejected without touching the network; once the cool-down elapses a single probe is
+ * let through, and its outcome either closes the breaker or re-opens it for twice as long.
+ */
+public final class CircuitBreaker {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long BASE_OPEN_NANOS = TimeUnit.SECONDS.toNanos(15);
+    private static final long MAX_OPEN_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int consecutiveOpens;
+    private long openUntilNanos;
+
+    CircuitBreaker(String name) {
+        this.name = name;
+    }
+
+    /** @return whether a call may proceed; moves an expired open breaker to half-open for one probe */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openUntilNanos >= 0) {
+                    state = State.HALF_OPEN;
+                    LOGGER.debug("Circuit for {} half-open, probing", name);
+                    return true;
+                }
+                return false;
+            default:
+                return false; // A probe is already in flight
+        }
+    }
+
+    /** @return whether {@link #tryAcquire()} would currently let a call through, without side effects */
+    public synchronized boolean isCallPermitted() {
+        return state == State.CLOSED || (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0);
+    }
+
+    synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            LOGGER.info("Circuit for {} closed, endpoint recovered", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        consecutiveOpens = 0;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= FAILURE_THRESHOLD) {
+            long openNanos = Math.min(BASE_OPEN_NANOS << Math.min(consecutiveOpens, 10), MAX_OPEN_NANOS);
+            openUntilNanos = System.nanoTime() + openNanos;
+            consecutiveOpens++;
+            if (state != State.OPEN) {
+                LOGGER.warn("Circuit for {} opened after {} consecutive failures, next probe in {}s",
+                    name, consecutiveFailures, TimeUnit.NANOSECONDS.toSeconds(openNanos));
+            }
+            state = State.OPEN;
+        }
+    }
+
+    // A call that never reached the endpoint must not leave a half-open breaker waiting forever
+    synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /** @return seconds until the next probe is allowed, or 0 if calls are currently permitted */
+    public synchronized long getSecondsUntilProbe() {
+        if (state != State.OPEN) return 0;
+        return Math.max(0, TimeUnit.NANOSECONDS.toSeconds(openUntilNanos - System.nanoTime()));
+    }
+}
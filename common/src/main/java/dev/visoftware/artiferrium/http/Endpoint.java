@@ -0,0 +1,77 @@
+package dev.visoftware.artiferrium.http;
+
+import java.util.Arrays;
+
+/**
+ * One configured API base URL together with its observed latency and circuit breaker.
+ */
+public final class Endpoint {
+    private static final int SAMPLE_WINDOW = 64;
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final String baseUrl;
+    private final CircuitBreaker circuitBreaker;
+    private final long[] samples = new long[SAMPLE_WINDOW];
+    private int sampleCount;
+    private int sampleIndex;
+    private volatile double ewmaNanos;
+
+    Endpoint(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.circuitBreaker = new CircuitBreaker(this.baseUrl);
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public boolean isHealthy() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    public int getConsecutiveFailures() {
+        return circuitBreaker.getConsecutiveFailures();
+    }
+
+    /** @return smoothed time-to-response in nanoseconds, or 0 if no request completed yet */
+    public double getLatencyNanos() {
+        return ewmaNanos;
+    }
+
+    void recordSuccess(long latencyNanos) {
+        synchronized (this) {
+            samples[sampleIndex] = latencyNanos;
+            sampleIndex = (sampleIndex + 1) % SAMPLE_WINDOW;
+            sampleCount = Math.min(sampleCount + 1, SAMPLE_WINDOW);
+            ewmaNanos = ewmaNanos == 0 ? latencyNanos : ewmaNanos + EWMA_WEIGHT * (latencyNanos - ewmaNanos);
+        }
+        circuitBreaker.onSuccess();
+    }
+
+    void recordFailure() {
+        circuitBreaker.onFailure();
+    }
+
+    /** @return the given latency percentile in nanoseconds, or -1 until enough samples exist */
+    synchronized long latencyPercentile(double percentile) {
+        if (sampleCount < 8) return -1;
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    // Lower is better; endpoints without samples score 0 so they get measured
+    double score() {
+        return ewmaNanos * (1 + circuitBreaker.getConsecutiveFailures());
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
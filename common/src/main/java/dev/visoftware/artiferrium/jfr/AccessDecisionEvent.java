@@ -0,0 +1,37 @@
+package dev.visoftware.artiferrium.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Emitted per allowlist check. The event is only created while a recording enables it, and its
+ * fields are only filled in once it passes its threshold.
+ */
+@Name("artiferrium.AccessDecision")
+@Label("Access Decision")
+@Category("Artiferrium")
+@Description("Checking a joining player against the allowlist")
+@Enabled(false)
+@Threshold("20 us")
+@StackTrace(false)
+public final class AccessDecisionEvent extends Event {
+    @Label("Player")
+    public String player;
+
+    @Label("Allowed")
+    public boolean allowed;
+
+    @Label("Tiers")
+    @Description("Allowlist tier bitmask, -1 if the player is not on the allowlist")
+    public int tiers;
+
+    @Label("Source")
+    @Description("shared for the host-wide cache, index for this instance's copy")
+    public String source;
+}
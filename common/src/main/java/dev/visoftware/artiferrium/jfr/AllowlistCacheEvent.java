@@ -0,0 +1,32 @@
+package dev.visoftware.artiferrium.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("artiferrium.AllowlistCache")
+@Label("Allowlist Cache")
+@Category("Artiferrium")
+@Description("Loading or saving the on-disk allowlist cache")
+@Enabled(false)
+@StackTrace(false)
+public final class AllowlistCacheEvent extends Event {
+    @Label("Operation")
+    @Description("load or save")
+    public String operation;
+
+    @Label("Entries")
+    public int entries;
+
+    @Label("File Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Success")
+    public boolean success;
+}
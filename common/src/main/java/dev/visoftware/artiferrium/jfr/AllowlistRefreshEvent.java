@@ -0,0 +1,44 @@
+package dev.visoftware.artiferrium.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("artiferrium.AllowlistRefresh")
+@Label("Allowlist Refresh")
+@Category("Artiferrium")
+@Description("Fetching the allowlist from VI Software and publishing it")
+@Enabled(false)
+@StackTrace(false)
+public final class AllowlistRefreshEvent extends Event {
+    @Label("Delta")
+    @Description("Whether the backend sent only the changes since the held version")
+    public boolean delta;
+
+    @Label("Response Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Entries")
+    @Description("Allowed players after the refresh")
+    public int entries;
+
+    @Label("Read And Parse Time")
+    @Description("Reading and decoding the response body into JSON")
+    @Timespan
+    public long parseTime;
+
+    @Label("Apply Time")
+    @Description("Building and publishing the new allowlist index")
+    @Timespan
+    public long applyTime;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,23 @@
+package dev.visoftware.artiferrium.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("artiferrium.Authentication")
+@Label("Authentication")
+@Category("Artiferrium")
+@Description("Exchanging the server key for a session with VI Software")
+@Enabled(false)
+@StackTrace(false)
+public final class AuthenticationEvent extends Event {
+    @Label("Success")
+    public boolean success;
+
+    @Label("Private Server")
+    public boolean privateServer;
+}
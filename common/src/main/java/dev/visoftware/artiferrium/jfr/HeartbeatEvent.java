@@ -0,0 +1,30 @@
+package dev.visoftware.artiferrium.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("artiferrium.Heartbeat")
+@Label("Heartbeat")
+@Category("Artiferrium")
+@Description("One heartbeat round trip, including the roster change and analytics upload that ride on it")
+@Enabled(false)
+@StackTrace(false)
+public final class HeartbeatEvent extends Event {
+    @Label("Players")
+    public int players;
+
+    @Label("Transport")
+    @Description("binary or http")
+    public String transport;
+
+    @Label("Roster Sent")
+    public boolean rosterSent;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,60 @@
+package dev.visoftware.artiferrium.logging;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boxed multi-line notices for the console. The box is only built once the level is known to be
+ * enabled; lines are split on newlines and wrapped to fit, an empty line leaves a gap and a
+ * {@code null} line is skipped.
+ */
+public final class Banner {
+    private static final int WIDTH = 62;
+
+    private Banner() {}
+
+    public static void info(Logger logger, String title, String... lines) {
+        if (logger.isInfoEnabled()) {
+            build(title, lines).forEach(logger::info);
+        }
+    }
+
+    public static void warn(Logger logger, String title, String... lines) {
+        if (logger.isWarnEnabled()) {
+            build(title, lines).forEach(logger::warn);
+        }
+    }
+
+    public static void error(Logger logger, String title, String... lines) {
+        if (logger.isErrorEnabled()) {
+            build(title, lines).forEach(logger::error);
+        }
+    }
+
+    private static List<String> build(String title, String[] lines) {
+        List<String> box = new ArrayList<>();
+        box.add("╔" + "═".repeat(WIDTH + 2) + "╗");
+        int padding = Math.max(0, WIDTH - title.length());
+        box.add("║ " + " ".repeat(padding / 2) + title + " ".repeat(padding - padding / 2) + " ║");
+        box.add("╟" + "─".repeat(WIDTH + 2) + "╢");
+        for (String text : lines) {
+            if (text == null) continue;
+            for (String line : text.split("\n", -1)) {
+                if (line.isEmpty()) {
+                    box.add(row(""));
+                }
+                for (int start = 0; start < line.length(); start += WIDTH) {
+                    box.add(row(line.substring(start, Math.min(line.length(), start + WIDTH))));
+                }
+            }
+        }
+        box.add("╚" + "═".repeat(WIDTH + 2) + "╝");
+        return box;
+    }
+
+    private static String row(String text) {
+        return "║ " + text + " ".repeat(WIDTH - text.length()) + " ║";
+    }
+}
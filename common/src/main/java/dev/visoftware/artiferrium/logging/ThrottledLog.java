@@ -0,0 +1,116 @@
+package dev.visoftware.artiferrium.logging;
+
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses a failure that repeats every retry into one line per window. The first occurrence of a
+ * key is logged in full, stack trace included; later ones within the window are only counted, and
+ * the first one after the window is logged without its stack trace and with the count
+ * ("suppressed N similar in 5m"). {@link #resolve(String)} reports what is still pending once the
+ * problem goes away, so the next failure under that key is logged in full again.
+ * <p>
+ * Arguments follow SLF4J conventions, including a trailing {@link Throwable}; nothing is formatted
+ * for suppressed messages.
+ */
+public final class ThrottledLog {
+    private static final long DEFAULT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final Logger logger;
+    private final long windowMillis;
+    private final String windowLabel;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongAdder suppressedTotal = ArtiferriumMetrics.get().counter("log.suppressed");
+
+    private static final class Window {
+        long startMillis;
+        int suppressed;
+    }
+
+    public ThrottledLog(Logger logger) {
+        this(logger, DEFAULT_WINDOW_MILLIS);
+    }
+
+    public ThrottledLog(Logger logger, long windowMillis) {
+        this.logger = logger;
+        this.windowMillis = windowMillis;
+        this.windowLabel = windowMillis % 60_000 == 0 ? windowMillis / 60_000 + "m" : windowMillis / 1000 + "s";
+    }
+
+    public void error(String key, String format, Object... args) {
+        if (logger.isErrorEnabled()) {
+            log(true, key, format, args);
+        }
+    }
+
+    public void warn(String key, String format, Object... args) {
+        if (logger.isWarnEnabled()) {
+            log(false, key, format, args);
+        }
+    }
+
+    /** Ends the failure streak under {@code key}, reporting how many messages were suppressed since the last one logged. */
+    public void resolve(String key) {
+        Window window = windows.remove(key);
+        if (window == null) return;
+
+        int suppressed;
+        synchronized (window) {
+            suppressed = window.suppressed;
+        }
+        if (suppressed > 0) {
+            logger.info("Suppressed {} more similar messages ({}) before it recovered", suppressed, key);
+        }
+    }
+
+    private void log(boolean error, String key, String format, Object[] args) {
+        long now = System.currentTimeMillis();
+        Window window = windows.computeIfAbsent(key, k -> new Window());
+
+        int suppressed;
+        boolean first;
+        synchronized (window) {
+            first = window.startMillis == 0;
+            if (!first && now - window.startMillis < windowMillis) {
+                window.suppressed++;
+                suppressedTotal.increment();
+                return;
+            }
+            suppressed = window.suppressed;
+            window.startMillis = now;
+            window.suppressed = 0;
+        }
+
+        if (first) {
+            emit(error, format, args);
+            return;
+        }
+
+        // Repeats keep the exception's message but not its stack trace
+        Object[] repeatArgs = args;
+        String repeatFormat = format;
+        if (args.length > 0 && args[args.length - 1] instanceof Throwable throwable) {
+            repeatArgs = Arrays.copyOf(args, args.length);
+            repeatArgs[args.length - 1] = throwable.toString();
+            repeatFormat = format + ": {}";
+        }
+        if (suppressed > 0) {
+            repeatFormat = repeatFormat + " (suppressed " + suppressed + " similar in " + windowLabel + ")";
+        }
+        emit(error, repeatFormat, repeatArgs);
+    }
+
+    private void emit(boolean error, String format, Object[] args) {
+        if (error) {
+            logger.error(format, args);
+        } else {
+            logger.warn(format, args);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package dev.visoftware.artiferrium.login;
+
+import com.mojang.authlib.GameProfile;
+import dev.visoftware.artiferrium.config.Config;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Paces logins that have passed authentication so a reconnect storm does not load hundreds of
+ * players in the same few ticks. Accepted logins wait in a FIFO queue (operators in a separate
+ * queue that is always served first) and at most {@code logins_per_tick} of them are let through
+ * per tick; while the server is over its MSPT budget only one login per {@link #THROTTLED_TICKS}
+ * ticks is admitted.
+ * <p>
+ * Only ever called on the server thread, from the login listener's tick.
+ */
+public final class AdmissionController {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final AdmissionController INSTANCE = new AdmissionController();
+    private static final int THROTTLED_TICKS = 10;
+
+    public enum Decision {
+        ADMIT,
+        WAIT,
+        REJECT
+    }
+
+    private static final class Ticket {
+        final Object listener;
+        final String playerName;
+        final boolean priority;
+        final int enqueuedTick;
+
+        Ticket(Object listener, String playerName, boolean priority, int enqueuedTick) {
+            this.listener = listener;
+            this.playerName = playerName;
+            this.priority = priority;
+            this.enqueuedTick = enqueuedTick;
+        }
+    }
+
+    private final Map<Object, Ticket> tickets = new IdentityHashMap<>();
+    private final Deque<Ticket> priorityQueue = new ArrayDeque<>();
+    private final Deque<Ticket> queue = new ArrayDeque<>();
+    private final LongAdder admitted;
+    private final LongAdder queued;
+    private final LongAdder timedOut;
+    private int currentTick = -1;
+    private int admittedThisTick;
+    private int lastThrottledAdmission = Integer.MIN_VALUE / 2;
+
+    private AdmissionController() {
+        ArtiferriumMetrics metrics = ArtiferriumMetrics.get();
+        this.admitted = metrics.counter("admission.admitted");
+        this.queued = metrics.counter("admission.queued");
+        this.timedOut = metrics.counter("admission.timed_out");
+    }
+
+    public static AdmissionController get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Decides whether the login owned by {@code listener} may proceed this tick. Called every tick
+     * for as long as the login is waiting.
+     */
+    public Decision offer(Object listener, MinecraftServer server, GameProfile profile) {
+        Config config = Config.get();
+        if (!config.isAdmissionEnabled()) return Decision.ADMIT;
+
+        int tick = server.getTickCount();
+        if (tick != currentTick) {
+            currentTick = tick;
+            admittedThisTick = 0;
+        }
+
+        Ticket ticket = tickets.get(listener);
+        if (ticket == null) {
+            // Fast path: nobody waiting and budget left, so no queueing at all
+            if (priorityQueue.isEmpty() && queue.isEmpty() && remainingBudget(server, tick) > 0) {
+                return admit(tick);
+            }
+
+            ticket = new Ticket(listener, profile.getName(), isPriority(server, profile), tick);
+            tickets.put(listener, ticket);
+            (ticket.priority ? priorityQueue : queue).addLast(ticket);
+            queued.increment();
+            LOGGER.debug("Login of {} queued at position {}", ticket.playerName, positionOf(ticket));
+        }
+
+        // Listeners tick in arbitrary order, so anyone within the remaining budget from the front may go
+        if (isWithinFront(ticket, remainingBudget(server, tick))) {
+            remove(listener);
+            return admit(tick);
+        }
+
+        if (tick - ticket.enqueuedTick > config.getAdmissionMaxWaitSeconds() * 20) {
+            LOGGER.info("Login of {} timed out in the admission queue at position {}", ticket.playerName, positionOf(ticket));
+            timedOut.increment();
+            return Decision.REJECT;
+        }
+        return Decision.WAIT;
+    }
+
+    /** Drops a login from the queue, e.g. because the client disconnected while waiting. */
+    public void remove(Object listener) {
+        Ticket ticket = tickets.remove(listener);
+        if (ticket != null) {
+            (ticket.priority ? priorityQueue : queue).remove(ticket);
+        }
+    }
+
+    /**
+     * Builds the disconnect message for a rejected login and drops it from the queue. The vanilla
+     * login screen cannot show progress, so this is the one place the player sees their position.
+     */
+    public Component rejectionMessage(Object listener) {
+        int position = positionOf(listener);
+        remove(listener);
+        return Component.literal("The server is busy admitting players (you were #" + position +
+            " of " + (tickets.size() + 1) + " in line). Please reconnect in a moment.");
+    }
+
+    public int getQueueLength() {
+        return tickets.size();
+    }
+
+    public int positionOf(Object listener) {
+        Ticket ticket = tickets.get(listener);
+        return ticket != null ? positionOf(ticket) : 0;
+    }
+
+    private int positionOf(Ticket ticket) {
+        int position = 1;
+        for (Ticket t : priorityQueue) {
+            if (t == ticket) return position;
+            position++;
+        }
+        for (Ticket t : queue) {
+            if (t == ticket) return position;
+            position++;
+        }
+        return 0;
+    }
+
+    private boolean isWithinFront(Ticket ticket, int slots) {
+        for (Ticket t : priorityQueue) {
+            if (slots-- <= 0) return false;
+            if (t == ticket) return true;
+        }
+        for (Ticket t : queue) {
+            if (slots-- <= 0) return false;
+            if (t == ticket) return true;
+        }
+        return false;
+    }
+
+    private int remainingBudget(MinecraftServer server, int tick) {
+        if (server.getAverageTickTime() > Config.get().getAdmissionMsptBudget()) {
+            return admittedThisTick == 0 && tick - lastThrottledAdmission >= THROTTLED_TICKS ? 1 : 0;
+        }
+        return Config.get().getAdmissionLoginsPerTick() - admittedThisTick;
+    }
+
+    private Decision admit(int tick) {
+        admittedThisTick++;
+        lastThrottledAdmission = tick;
+        admitted.increment();
+        return Decision.ADMIT;
+    }
+
+    private static boolean isPriority(MinecraftServer server, GameProfile profile) {
+        // Offline-mode profiles have no id until the login is accepted
+        return ReservedSlots.isStaff(profile) || profile.getId() != null && server.getPlayerList().isOp(profile);
+    }
+}
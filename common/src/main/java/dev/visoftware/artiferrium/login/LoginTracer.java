@@ -0,0 +1,209 @@
+package dev.visoftware.artiferrium.login;
+
+import dev.visoftware.artiferrium.config.Config;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import dev.visoftware.artiferrium.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times each phase of a login, keyed by the player's connection, and feeds the results into one
+ * histogram per phase ({@code login.phase.<name>}) plus a short list of the slowest logins.
+ * <p>
+ * The sequential phases are measured from the end of the previous one. {@link Phase#ALLOWLIST} is
+ * timed on its own and overlaps {@link Phase#PLAYER_LOAD}, since the platform join handlers that
+ * check the allowlist run while the player is being placed in the world.
+ */
+public final class LoginTracer {
+    private static final LoginTracer INSTANCE = new LoginTracer();
+    private static final int MAX_IN_FLIGHT = 512;
+    private static final long STALE_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final Phase[] PHASES = Phase.values();
+
+    public enum Phase {
+        /** Hello to encryption response; the client's side of the handshake. */
+        HANDSHAKE("handshake"),
+        /** Encryption response until the login is ready to accept (the Mojang session check). */
+        SESSION_CHECK("session_check"),
+        /** Ready to accept until admitted, including time in the admission queue. */
+        ADMISSION("admission"),
+        /** Player data load and placement in the world, including the platform join handlers. */
+        PLAYER_LOAD("player_load"),
+        /** Artiferrium's allowlist check. */
+        ALLOWLIST("allowlist"),
+        /** Placement until the client first reports its position, i.e. chunks arrived. */
+        WORLD_LOAD("world_load");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    /** A finished login with its per-phase durations. */
+    public static final class CompletedLogin {
+        private final String playerName;
+        private final long finishedMillis;
+        private final long totalNanos;
+        private final Map<Phase, Long> phaseNanos;
+
+        CompletedLogin(String playerName, long finishedMillis, long totalNanos, Map<Phase, Long> phaseNanos) {
+            this.playerName = playerName;
+            this.finishedMillis = finishedMillis;
+            this.totalNanos = totalNanos;
+            this.phaseNanos = phaseNanos;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public long getFinishedMillis() {
+            return finishedMillis;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public Map<Phase, Long> getPhaseNanos() {
+            return phaseNanos;
+        }
+    }
+
+    private static final class Trace {
+        final String playerName;
+        final long startNanos;
+        // Indexed by phase ordinal, -1 until recorded; primitive so recording never boxes
+        final long[] phaseNanos = new long[PHASES.length];
+        long lastMarkNanos;
+
+        Trace(String playerName, long startNanos) {
+            this.playerName = playerName;
+            this.startNanos = startNanos;
+            this.lastMarkNanos = startNanos;
+            Arrays.fill(phaseNanos, -1);
+        }
+    }
+
+    private final Map<Object, Trace> traces = new ConcurrentHashMap<>();
+    private final EnumMap<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final LatencyHistogram totalHistogram;
+    // Guarded by itself; a min-heap so the fastest of the slow logins is evicted first
+    private final PriorityQueue<CompletedLogin> slowest =
+        new PriorityQueue<>(Comparator.comparingLong(CompletedLogin::getTotalNanos));
+
+    private LoginTracer() { // Singleton
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, ArtiferriumMetrics.get().histogram("login.phase." + phase.getMetricName()));
+        }
+        totalHistogram = ArtiferriumMetrics.get().histogram("login.total");
+    }
+
+    public static LoginTracer get() {
+        return INSTANCE;
+    }
+
+    /** Starts tracing a login; {@code connection} identifies it in all later calls. */
+    public void begin(Object connection, String playerName) {
+        if (!Config.get().isLoginTracing()) return;
+
+        long now = System.nanoTime();
+        if (traces.size() >= MAX_IN_FLIGHT) {
+            // Connections that vanished without a disconnect callback
+            traces.values().removeIf(trace -> now - trace.startNanos > STALE_NANOS);
+            if (traces.size() >= MAX_IN_FLIGHT) return;
+        }
+        traces.put(connection, new Trace(playerName, now));
+    }
+
+    /** Ends {@code phase} now, unless it was already recorded for this login. */
+    public void phaseEnded(Object connection, Phase phase) {
+        Trace trace = traces.get(connection);
+        if (trace == null) return;
+
+        long now = System.nanoTime();
+        synchronized (trace) {
+            if (trace.phaseNanos[phase.ordinal()] >= 0) return;
+            trace.phaseNanos[phase.ordinal()] = now - trace.lastMarkNanos;
+            trace.lastMarkNanos = now;
+        }
+    }
+
+    /** Records a phase timed by the caller without moving the sequential clock. */
+    public void record(Object connection, Phase phase, long nanos) {
+        Trace trace = traces.get(connection);
+        if (trace == null) return;
+
+        synchronized (trace) {
+            if (trace.phaseNanos[phase.ordinal()] < 0) {
+                trace.phaseNanos[phase.ordinal()] = nanos;
+            }
+        }
+    }
+
+    /** Ends the last phase and publishes the trace. */
+    public void complete(Object connection) {
+        Trace trace = traces.remove(connection);
+        if (trace == null) return;
+
+        long now = System.nanoTime();
+        Map<Phase, Long> phases = new EnumMap<>(Phase.class);
+        synchronized (trace) {
+            if (trace.phaseNanos[Phase.WORLD_LOAD.ordinal()] < 0) {
+                trace.phaseNanos[Phase.WORLD_LOAD.ordinal()] = now - trace.lastMarkNanos;
+            }
+            for (Phase phase : PHASES) {
+                if (trace.phaseNanos[phase.ordinal()] >= 0) {
+                    phases.put(phase, trace.phaseNanos[phase.ordinal()]);
+                }
+            }
+        }
+
+        long total = now - trace.startNanos;
+        phases.forEach((phase, nanos) -> histograms.get(phase).recordNanos(nanos));
+        totalHistogram.recordNanos(total);
+
+        int keep = Config.get().getSlowestLoginsKept();
+        if (keep <= 0) return;
+        CompletedLogin login = new CompletedLogin(trace.playerName, System.currentTimeMillis(), total, phases);
+        synchronized (slowest) {
+            slowest.add(login);
+            while (slowest.size() > keep) {
+                slowest.poll();
+            }
+        }
+    }
+
+    /** Forgets a login that was aborted before it completed. */
+    public void abandon(Object connection) {
+        traces.remove(connection);
+    }
+
+    /** @return the slowest logins seen since startup, slowest first */
+    public List<CompletedLogin> getSlowestLogins() {
+        List<CompletedLogin> logins;
+        synchronized (slowest) {
+            logins = new ArrayList<>(slowest);
+        }
+        logins.sort(Comparator.comparingLong(CompletedLogin::getTotalNanos).reversed());
+        return logins;
+    }
+
+    public int getInFlight() {
+        return traces.size();
+    }
+}
@@ -0,0 +1,55 @@
+package dev.visoftware.artiferrium.login;
+
+import com.mojang.authlib.GameProfile;
+import dev.visoftware.artiferrium.config.Config;
+import dev.visoftware.artiferrium.model.AllowlistTier;
+import dev.visoftware.artiferrium.service.AllowlistService;
+import net.minecraft.core.UUIDUtil;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.players.PlayerList;
+
+import java.util.UUID;
+
+/**
+ * Keeps the last {@code [slots] reserved} player slots for VIP and staff tiers, and lets staff join
+ * a full server. Tiers come from the same allowlist lookup as the access check.
+ */
+public final class ReservedSlots {
+    private static final int PRIVILEGED_TIERS = AllowlistTier.STAFF.getBit() | AllowlistTier.VIP.getBit();
+
+    private ReservedSlots() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /** @return whether the player may take one of the slots that are still open to them */
+    public static boolean hasSlotFor(MinecraftServer server, GameProfile profile) {
+        int reserved = Config.get().getReservedSlots();
+        if (reserved <= 0) return true;
+        if ((tiersOf(profile) & PRIVILEGED_TIERS) != 0) return true;
+
+        PlayerList players = server.getPlayerList();
+        return players.getPlayers().size() < players.getMaxPlayers() - reserved;
+    }
+
+    /** @return whether the player may join even when the server is at its player limit */
+    public static boolean canExceedCapacity(GameProfile profile) {
+        return Config.get().isStaffBypassFull() && AllowlistTier.STAFF.isIn(tiersOf(profile));
+    }
+
+    public static boolean isStaff(GameProfile profile) {
+        return AllowlistTier.STAFF.isIn(tiersOf(profile));
+    }
+
+    public static Component fullMessage() {
+        return Component.literal(Config.get().getReservedSlotsMessage());
+    }
+
+    // Players not on the allowlist (-1) have no tiers
+    private static int tiersOf(GameProfile profile) {
+        // Offline-mode profiles only get their id once the login is accepted
+        UUID id = profile.getId() != null ? profile.getId() : UUIDUtil.createOfflinePlayerUUID(profile.getName());
+        int tiers = AllowlistService.tiersOf(id);
+        return tiers < 0 ? 0 : tiers;
+    }
+}
@@ -0,0 +1,44 @@
+package dev.visoftware.artiferrium.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class ArtiferriumMetrics {
+    private static final ArtiferriumMetrics INSTANCE = new ArtiferriumMetrics();
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private ArtiferriumMetrics() {} // Singleton
+
+    public static ArtiferriumMetrics get() {
+        return INSTANCE;
+    }
+
+    // Callers should look counters up once and keep the reference; increments are then contention-free
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    public Map<String, LatencyHistogram> histograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        histograms.forEach((name, histogram) -> {
+            values.put(name + ".count", histogram.getCount());
+            values.put(name + ".p50_micros", histogram.percentileMicros(50));
+            values.put(name + ".p95_micros", histogram.percentileMicros(95));
+            values.put(name + ".max_micros", histogram.getMaxMicros());
+        });
+        return values;
+    }
+}
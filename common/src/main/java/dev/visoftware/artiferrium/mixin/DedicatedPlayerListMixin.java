@@ -0,0 +1,20 @@
+package dev.visoftware.artiferrium.mixin;
+
+import com.mojang.authlib.GameProfile;
+import dev.visoftware.artiferrium.login.ReservedSlots;
+import net.minecraft.server.dedicated.DedicatedPlayerList;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(DedicatedPlayerList.class)
+public abstract class DedicatedPlayerListMixin {
+    // Vanilla only lets ops with the bypass flag past max-players; staff tiers get the same treatment
+    @Inject(method = "canBypassPlayerLimit", at = @At("RETURN"), cancellable = true)
+    private void artiferrium$staffBypass(GameProfile profile, CallbackInfoReturnable<Boolean> cir) {
+        if (!cir.getReturnValue() && ReservedSlots.canExceedCapacity(profile)) {
+            cir.setReturnValue(true);
+        }
+    }
+}
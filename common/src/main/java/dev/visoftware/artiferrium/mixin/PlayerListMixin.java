@@ -0,0 +1,23 @@
+package dev.visoftware.artiferrium.mixin;
+
+import dev.visoftware.artiferrium.login.LoginTracer;
+import net.minecraft.network.Connection;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.players.PlayerList;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(PlayerList.class)
+public abstract class PlayerListMixin {
+    @Inject(method = "placeNewPlayer", at = @At("HEAD"))
+    private void artiferrium$traceAdmitted(Connection connection, ServerPlayer player, CallbackInfo ci) {
+        LoginTracer.get().phaseEnded(connection, LoginTracer.Phase.ADMISSION);
+    }
+
+    @Inject(method = "placeNewPlayer", at = @At("TAIL"))
+    private void artiferrium$tracePlaced(Connection connection, ServerPlayer player, CallbackInfo ci) {
+        LoginTracer.get().phaseEnded(connection, LoginTracer.Phase.PLAYER_LOAD);
+    }
+}
@@ -0,0 +1,31 @@
+package dev.visoftware.artiferrium.mixin;
+
+import dev.visoftware.artiferrium.login.LoginTracer;
+import net.minecraft.network.Connection;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.game.ServerboundMovePlayerPacket;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerGamePacketListenerImpl.class)
+public abstract class ServerGamePacketListenerImplMixin {
+    @Shadow @Final public Connection connection;
+
+    // The first position report on the server thread means the client has its spawn chunks
+    @Inject(method = "handleMovePlayer", at = @At(value = "INVOKE",
+        target = "Lnet/minecraft/network/protocol/PacketUtils;ensureRunningOnSameThread(Lnet/minecraft/network/protocol/Packet;Lnet/minecraft/network/PacketListener;Lnet/minecraft/server/level/ServerLevel;)V",
+        shift = At.Shift.AFTER))
+    private void artiferrium$traceSpawned(ServerboundMovePlayerPacket packet, CallbackInfo ci) {
+        LoginTracer.get().complete(connection);
+    }
+
+    @Inject(method = "onDisconnect", at = @At("HEAD"))
+    private void artiferrium$abandonTrace(Component reason, CallbackInfo ci) {
+        LoginTracer.get().abandon(connection);
+    }
+}
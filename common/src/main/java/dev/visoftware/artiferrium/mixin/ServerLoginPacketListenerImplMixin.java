@@ -0,0 +1,69 @@
+package dev.visoftware.artiferrium.mixin;
+
+import com.mojang.authlib.GameProfile;
+import dev.visoftware.artiferrium.login.AdmissionController;
+import dev.visoftware.artiferrium.login.LoginTracer;
+import dev.visoftware.artiferrium.login.ReservedSlots;
+import net.minecraft.network.Connection;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.login.ServerboundHelloPacket;
+import net.minecraft.network.protocol.login.ServerboundKeyPacket;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerLoginPacketListenerImpl;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerLoginPacketListenerImpl.class)
+public abstract class ServerLoginPacketListenerImplMixin {
+    @Shadow @Final MinecraftServer server;
+    @Shadow @Final Connection connection;
+    @Shadow GameProfile gameProfile;
+    @Shadow private int tick;
+
+    @Shadow public abstract void disconnect(Component reason);
+
+    @Inject(method = "handleHello", at = @At("HEAD"))
+    private void artiferrium$traceHello(ServerboundHelloPacket packet, CallbackInfo ci) {
+        LoginTracer.get().begin(connection, packet.name());
+    }
+
+    @Inject(method = "handleKey", at = @At("HEAD"))
+    private void artiferrium$traceKey(ServerboundKeyPacket packet, CallbackInfo ci) {
+        LoginTracer.get().phaseEnded(connection, LoginTracer.Phase.HANDSHAKE);
+    }
+
+    // tick() retries handleAcceptedLogin every tick while the state stays READY_TO_ACCEPT
+    @Inject(method = "handleAcceptedLogin", at = @At("HEAD"), cancellable = true)
+    private void artiferrium$paceAdmission(CallbackInfo ci) {
+        // Only the first call counts; later ones are the admission queue retrying
+        LoginTracer.get().phaseEnded(connection, LoginTracer.Phase.SESSION_CHECK);
+        AdmissionController admission = AdmissionController.get();
+        switch (admission.offer(this, server, gameProfile)) {
+            case ADMIT -> {
+                if (!ReservedSlots.hasSlotFor(server, gameProfile)) {
+                    ci.cancel();
+                    disconnect(ReservedSlots.fullMessage());
+                }
+            }
+            case WAIT -> {
+                // Keep vanilla's slow-login timeout from firing while we hold the player back
+                tick = 0;
+                ci.cancel();
+            }
+            case REJECT -> {
+                ci.cancel();
+                disconnect(admission.rejectionMessage(this));
+            }
+        }
+    }
+
+    @Inject(method = "onDisconnect", at = @At("HEAD"))
+    private void artiferrium$leaveAdmissionQueue(Component reason, CallbackInfo ci) {
+        AdmissionController.get().remove(this);
+        LoginTracer.get().abandon(connection);
+    }
+}
@@ -0,0 +1,27 @@
+package dev.visoftware.artiferrium.model;
+
+/**
+ * Outcome of checking a joining player, with the reason when they are turned away.
+ */
+public enum AccessDecision {
+    ALLOWED(null),
+    /** The player is not on the allowlist (and, under {@link AccessPolicy#UUID_OR_NETWORK}, no range admitted them either). */
+    NOT_ALLOWLISTED("Not in allowlist"),
+    /** The player is on the allowlist but connects from outside the permitted networks. */
+    NETWORK_DENIED("Connecting from outside the permitted networks");
+
+    private final String reason;
+
+    AccessDecision(String reason) {
+        this.reason = reason;
+    }
+
+    public boolean isAllowed() {
+        return this == ALLOWED;
+    }
+
+    /** @return why the player was denied, for the log; null when allowed */
+    public String getReason() {
+        return reason;
+    }
+}
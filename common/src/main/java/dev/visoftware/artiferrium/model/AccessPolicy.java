@@ -0,0 +1,33 @@
+package dev.visoftware.artiferrium.model;
+
+/**
+ * How the network (CIDR) rules synced with the allowlist combine with the player check. Servers
+ * without any network rules always fall back to the player check alone.
+ */
+public enum AccessPolicy {
+    /** Ignore network rules. */
+    UUID_ONLY("uuid_only"),
+    /** The player must be on the allowlist and connect from a permitted range. */
+    UUID_AND_NETWORK("uuid_and_network"),
+    /** Either check is enough, e.g. to let anyone in from an office range. */
+    UUID_OR_NETWORK("uuid_or_network");
+
+    private final String id;
+
+    AccessPolicy(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static AccessPolicy fromId(String id) {
+        for (AccessPolicy policy : values()) {
+            if (policy.id.equalsIgnoreCase(id)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown access policy '" + id + "', expected uuid_only, uuid_and_network or uuid_or_network");
+    }
+}
@@ -5,10 +5,16 @@ import java.time.LocalDateTime;
 public class AllowedUser {
     private final String uuid;
     private final LocalDateTime expiryDate;
+    private final int tiers;
 
     public AllowedUser(String uuid, LocalDateTime expiryDate) {
+        this(uuid, expiryDate, AllowlistTier.MEMBER.getBit());
+    }
+
+    public AllowedUser(String uuid, LocalDateTime expiryDate, int tiers) {
         this.uuid = uuid;
         this.expiryDate = expiryDate;
+        this.tiers = tiers;
     }
 
     public String getUuid() {
@@ -19,6 +25,11 @@ public class AllowedUser {
         return expiryDate;
     }
 
+    /** @return the entry's {@link AllowlistTier} bitmask */
+    public int getTiers() {
+        return tiers;
+    }
+
     public boolean isValid() {
         return expiryDate == null || LocalDateTime.now().isBefore(expiryDate);
     }
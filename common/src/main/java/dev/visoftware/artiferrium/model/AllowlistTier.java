@@ -0,0 +1,67 @@
+package dev.visoftware.artiferrium.model;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+/**
+ * Role tiers an allowlist entry can carry. Entries store them as a bitmask next to the UUID, so a
+ * single index lookup answers both "may this player join" and "which tiers does the player have".
+ */
+public enum AllowlistTier {
+    STAFF("staff", 1),
+    VIP("vip", 1 << 1),
+    MEMBER("member", 1 << 2);
+
+    private final String id;
+    private final int bit;
+
+    AllowlistTier(String id, int bit) {
+        this.id = id;
+        this.bit = bit;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getBit() {
+        return bit;
+    }
+
+    public boolean isIn(int tiers) {
+        return (tiers & bit) != 0;
+    }
+
+    public static AllowlistTier fromId(String id) {
+        for (AllowlistTier tier : values()) {
+            if (tier.id.equalsIgnoreCase(id)) {
+                return tier;
+            }
+        }
+        return null;
+    }
+
+    /** Parses a JSON array of tier ids; unknown ids are ignored and an empty result means member. */
+    public static int parseMask(JsonElement element) {
+        int mask = 0;
+        if (element != null && element.isJsonArray()) {
+            for (JsonElement tier : element.getAsJsonArray()) {
+                AllowlistTier parsed = fromId(tier.getAsString());
+                if (parsed != null) {
+                    mask |= parsed.bit;
+                }
+            }
+        }
+        return mask != 0 ? mask : MEMBER.bit;
+    }
+
+    public static JsonArray toJson(int mask) {
+        JsonArray tiers = new JsonArray();
+        for (AllowlistTier tier : values()) {
+            if (tier.isIn(mask)) {
+                tiers.add(tier.id);
+            }
+        }
+        return tiers;
+    }
+}
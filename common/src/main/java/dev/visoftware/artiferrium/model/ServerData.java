@@ -10,8 +10,8 @@ public class ServerData {
     private final String ownerUuid;
     private final String ownerName;
     private final String language;
-    private int playerCount;
-    private long lastHeartbeat;
+    private volatile int playerCount;
+    private volatile long lastHeartbeat;
 
     public ServerData(JsonObject serverInfo) {
         JsonObject server = serverInfo.get("server").getAsJsonObject();
@@ -0,0 +1,63 @@
+package dev.visoftware.artiferrium.service;
+
+import dev.visoftware.artiferrium.Artiferrium;
+import dev.visoftware.artiferrium.config.Config;
+
+/**
+ * Computes the delay before the next run of a periodic task. The backend can suggest a base
+ * interval; Artiferrium stretches it while the server is lagging or empty and shortens it for a
+ * few runs after something changed.
+ */
+public class AdaptiveInterval {
+    private static final float LAGGING_MSPT = 45.0f;
+    private static final float OVERLOADED_MSPT = 100.0f;
+    private static final int CHANGE_BOOST_RUNS = 3;
+
+    private final long defaultSeconds;
+    private final long minSeconds;
+    private final long maxSeconds;
+    private volatile long hintSeconds = -1;
+    private volatile int boostedRunsLeft;
+
+    public AdaptiveInterval(long defaultSeconds, long minSeconds, long maxSeconds) {
+        this.defaultSeconds = defaultSeconds;
+        this.minSeconds = minSeconds;
+        this.maxSeconds = maxSeconds;
+    }
+
+    /** Applies an interval suggested by the backend; non-positive values restore the default. */
+    public void applyHint(long seconds) {
+        hintSeconds = seconds;
+    }
+
+    /** Shortens the next few intervals, e.g. after the allowlist or player count changed. */
+    public void markChanged() {
+        boostedRunsLeft = CHANGE_BOOST_RUNS;
+    }
+
+    public long nextDelaySeconds() {
+        long base = hintSeconds > 0 ? hintSeconds : defaultSeconds;
+        if (!Config.get().isAdaptiveIntervals()) {
+            return base;
+        }
+
+        double delay = base;
+        if (boostedRunsLeft > 0) {
+            boostedRunsLeft--;
+            delay /= 4;
+        } else {
+            float mspt = Artiferrium.getAverageTickMillis();
+            if (mspt >= OVERLOADED_MSPT) {
+                delay *= 4;
+            } else if (mspt >= LAGGING_MSPT) {
+                delay *= 2;
+            }
+
+            if (Artiferrium.getCurrentPlayerCount() == 0) {
+                delay *= 2;
+            }
+        }
+
+        return Math.max(minSeconds, Math.min(maxSeconds, Math.round(delay)));
+    }
+}
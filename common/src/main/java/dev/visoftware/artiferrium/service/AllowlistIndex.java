@@ -0,0 +1,365 @@
+package dev.visoftware.artiferrium.service;
+
+import java.util.Arrays;
+
+/**
+ * Persistent hash array mapped trie from 128-bit UUIDs to their tier bitmask. Every version is
+ * immutable: {@link #with} and {@link #without} return a new root that shares all untouched nodes
+ * with the old one, so a single grant or revocation costs O(log n) instead of rebuilding the whole
+ * index, and readers holding an older root keep a consistent snapshot without locking.
+ * <p>
+ * Each level consumes 5 bits of a 32-bit hash of the UUID. UUIDs whose hashes collide completely
+ * share a small collision node at the bottom.
+ */
+public final class AllowlistIndex {
+    public static final AllowlistIndex EMPTY = new AllowlistIndex(BitmapNode.EMPTY, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final BitmapNode root;
+    private final int size;
+
+    private AllowlistIndex(BitmapNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    private static final class Leaf {
+        final long msb;
+        final long lsb;
+        final int hash;
+        final int tiers;
+
+        Leaf(long msb, long lsb, int hash, int tiers) {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.hash = hash;
+            this.tiers = tiers;
+        }
+
+        boolean matches(long msb, long lsb) {
+            return this.msb == msb && this.lsb == lsb;
+        }
+    }
+
+    private static final class CollisionNode {
+        final int hash;
+        final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        int indexOf(long msb, long lsb) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].matches(msb, lsb)) return i;
+            }
+            return -1;
+        }
+    }
+
+    // Slots hold a Leaf, a CollisionNode or a child BitmapNode
+    private static final class BitmapNode {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        int position(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    /** @return the tier bitmask, or -1 if the UUID is not in the index */
+    public int tiersOf(long msb, long lsb) {
+        int hash = hash(msb, lsb);
+        Object node = root;
+        int shift = 0;
+        while (true) {
+            if (node instanceof BitmapNode) {
+                BitmapNode bitmapNode = (BitmapNode) node;
+                int bit = 1 << ((hash >>> shift) & MASK);
+                if ((bitmapNode.bitmap & bit) == 0) return -1;
+                node = bitmapNode.slots[bitmapNode.position(bit)];
+                shift += BITS;
+            } else if (node instanceof Leaf) {
+                Leaf leaf = (Leaf) node;
+                return leaf.matches(msb, lsb) ? leaf.tiers : -1;
+            } else {
+                CollisionNode collision = (CollisionNode) node;
+                int index = collision.indexOf(msb, lsb);
+                return index < 0 ? -1 : collision.leaves[index].tiers;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** @return an index where the UUID maps to {@code tiers}, sharing everything else with this one */
+    public AllowlistIndex with(long msb, long lsb, int tiers) {
+        int existing = tiersOf(msb, lsb);
+        if (existing == tiers) return this;
+
+        Leaf leaf = new Leaf(msb, lsb, hash(msb, lsb), tiers);
+        BitmapNode newRoot = (BitmapNode) put(root, 0, leaf);
+        return new AllowlistIndex(newRoot, existing < 0 ? size + 1 : size);
+    }
+
+    /** @return an index without the UUID, sharing everything else with this one */
+    public AllowlistIndex without(long msb, long lsb) {
+        if (tiersOf(msb, lsb) < 0) return this;
+
+        int hash = hash(msb, lsb);
+        Object result = remove(root, 0, hash, msb, lsb);
+        BitmapNode newRoot;
+        if (result == null) {
+            newRoot = BitmapNode.EMPTY;
+        } else if (result instanceof BitmapNode) {
+            newRoot = (BitmapNode) result;
+        } else {
+            // The root collapsed to a single entry; the root itself must stay a bitmap node
+            newRoot = new BitmapNode(1 << (hashOf(result) & MASK), new Object[] {result});
+        }
+        return new AllowlistIndex(newRoot, size - 1);
+    }
+
+    /** Calls {@code consumer} for every entry, in no particular order. */
+    public void forEach(EntryConsumer consumer) {
+        forEach(root, consumer);
+    }
+
+    public interface EntryConsumer {
+        void accept(long msb, long lsb, int tiers);
+    }
+
+    /** @return whether both indexes hold the same UUIDs with the same tiers */
+    public boolean sameEntries(AllowlistIndex other) {
+        if (other == this) return true;
+        if (other.size != size) return false;
+        boolean[] same = {true};
+        forEach((msb, lsb, tiers) -> {
+            if (same[0] && other.tiersOf(msb, lsb) != tiers) {
+                same[0] = false;
+            }
+        });
+        return same[0];
+    }
+
+    private static void forEach(Object node, EntryConsumer consumer) {
+        if (node instanceof BitmapNode) {
+            for (Object slot : ((BitmapNode) node).slots) {
+                forEach(slot, consumer);
+            }
+        } else if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            consumer.accept(leaf.msb, leaf.lsb, leaf.tiers);
+        } else {
+            for (Leaf leaf : ((CollisionNode) node).leaves) {
+                consumer.accept(leaf.msb, leaf.lsb, leaf.tiers);
+            }
+        }
+    }
+
+    // Returns the replacement for node, which sits at a level indexed by shift
+    private static Object put(Object node, int shift, Leaf leaf) {
+        if (node instanceof BitmapNode) {
+            BitmapNode bitmapNode = (BitmapNode) node;
+            int bit = 1 << ((leaf.hash >>> shift) & MASK);
+            int position = bitmapNode.position(bit);
+
+            if ((bitmapNode.bitmap & bit) == 0) {
+                Object[] slots = new Object[bitmapNode.slots.length + 1];
+                System.arraycopy(bitmapNode.slots, 0, slots, 0, position);
+                slots[position] = leaf;
+                System.arraycopy(bitmapNode.slots, position, slots, position + 1, bitmapNode.slots.length - position);
+                return new BitmapNode(bitmapNode.bitmap | bit, slots);
+            }
+
+            Object[] slots = bitmapNode.slots.clone();
+            slots[position] = put(slots[position], shift + BITS, leaf);
+            return new BitmapNode(bitmapNode.bitmap, slots);
+        }
+
+        if (node instanceof Leaf) {
+            Leaf existing = (Leaf) node;
+            if (existing.matches(leaf.msb, leaf.lsb)) return leaf;
+            if (existing.hash == leaf.hash) return new CollisionNode(leaf.hash, new Leaf[] {existing, leaf});
+            return split(existing, leaf, shift);
+        }
+
+        CollisionNode collision = (CollisionNode) node;
+        if (collision.hash != leaf.hash) {
+            return split(collision, leaf, shift);
+        }
+        int index = collision.indexOf(leaf.msb, leaf.lsb);
+        Leaf[] leaves;
+        if (index >= 0) {
+            leaves = collision.leaves.clone();
+            leaves[index] = leaf;
+        } else {
+            leaves = Arrays.copyOf(collision.leaves, collision.leaves.length + 1);
+            leaves[leaves.length - 1] = leaf;
+        }
+        return new CollisionNode(collision.hash, leaves);
+    }
+
+    // Builds the smallest subtree holding two entries whose hashes differ
+    private static BitmapNode split(Object a, Object b, int shift) {
+        int indexA = (hashOf(a) >>> shift) & MASK;
+        int indexB = (hashOf(b) >>> shift) & MASK;
+        if (indexA == indexB) {
+            return new BitmapNode(1 << indexA, new Object[] {split(a, b, shift + BITS)});
+        }
+        Object[] slots = indexA < indexB ? new Object[] {a, b} : new Object[] {b, a};
+        return new BitmapNode((1 << indexA) | (1 << indexB), slots);
+    }
+
+    // Returns the replacement for node, or null if nothing is left of it
+    private static Object remove(Object node, int shift, int hash, long msb, long lsb) {
+        if (node instanceof BitmapNode) {
+            BitmapNode bitmapNode = (BitmapNode) node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmapNode.bitmap & bit) == 0) return node;
+
+            int position = bitmapNode.position(bit);
+            Object child = bitmapNode.slots[position];
+            Object newChild = remove(child, shift + BITS, hash, msb, lsb);
+            if (newChild == child) return node;
+
+            if (newChild != null) {
+                Object[] slots = bitmapNode.slots.clone();
+                slots[position] = newChild;
+                return collapse(new BitmapNode(bitmapNode.bitmap, slots));
+            }
+            if (bitmapNode.slots.length == 1) return null;
+
+            Object[] slots = new Object[bitmapNode.slots.length - 1];
+            System.arraycopy(bitmapNode.slots, 0, slots, 0, position);
+            System.arraycopy(bitmapNode.slots, position + 1, slots, position, slots.length - position);
+            return collapse(new BitmapNode(bitmapNode.bitmap & ~bit, slots));
+        }
+
+        if (node instanceof Leaf) {
+            return ((Leaf) node).matches(msb, lsb) ? null : node;
+        }
+
+        CollisionNode collision = (CollisionNode) node;
+        int index = collision.indexOf(msb, lsb);
+        if (index < 0) return node;
+        if (collision.leaves.length == 2) return collision.leaves[1 - index];
+
+        Leaf[] leaves = new Leaf[collision.leaves.length - 1];
+        System.arraycopy(collision.leaves, 0, leaves, 0, index);
+        System.arraycopy(collision.leaves, index + 1, leaves, index, leaves.length - index);
+        return new CollisionNode(collision.hash, leaves);
+    }
+
+    // A bitmap node left with a single leaf is replaced by the leaf, keeping paths short
+    private static Object collapse(BitmapNode node) {
+        if (node.slots.length == 1 && !(node.slots[0] instanceof BitmapNode)) {
+            return node.slots[0];
+        }
+        return node;
+    }
+
+    private static int hashOf(Object node) {
+        return node instanceof Leaf ? ((Leaf) node).hash : ((CollisionNode) node).hash;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ Long.rotateLeft(lsb, 32) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /** Builds an index from a full list in one pass instead of one {@link #with} per entry. */
+    public static final class Builder {
+        private Leaf[] leaves = new Leaf[16];
+        private int count;
+
+        /** Adds an entry; a UUID added twice ends up with the union of its tiers. */
+        public Builder put(long msb, long lsb, int tiers) {
+            if (count == leaves.length) {
+                leaves = Arrays.copyOf(leaves, count * 2);
+            }
+            leaves[count++] = new Leaf(msb, lsb, hash(msb, lsb), tiers);
+            return this;
+        }
+
+        public AllowlistIndex build() {
+            if (count == 0) return EMPTY;
+
+            Object built = build(leaves, 0, count, 0, new Leaf[count]);
+            BitmapNode root = built instanceof BitmapNode
+                ? (BitmapNode) built
+                : new BitmapNode(1 << (hashOf(built) & MASK), new Object[] {built});
+            int[] size = {0};
+            AllowlistIndex.forEach(root, (msb, lsb, tiers) -> size[0]++);
+            return new AllowlistIndex(root, size[0]);
+        }
+
+        // Buckets leaves[from, to) by their 5 bits at this level and recurses into each bucket
+        private static Object build(Leaf[] leaves, int from, int to, int shift, Leaf[] scratch) {
+            if (to - from == 1) return leaves[from];
+            if (shift >= Integer.SIZE) return buildCollision(leaves, from, to);
+
+            int[] starts = new int[(1 << BITS) + 1];
+            for (int i = from; i < to; i++) {
+                starts[((leaves[i].hash >>> shift) & MASK) + 1]++;
+            }
+            int bitmap = 0;
+            for (int i = 0; i < 1 << BITS; i++) {
+                if (starts[i + 1] > 0) bitmap |= 1 << i;
+                starts[i + 1] += starts[i];
+            }
+            int[] next = Arrays.copyOf(starts, starts.length);
+            for (int i = from; i < to; i++) {
+                scratch[from + next[(leaves[i].hash >>> shift) & MASK]++] = leaves[i];
+            }
+            System.arraycopy(scratch, from, leaves, from, to - from);
+
+            Object[] slots = new Object[Integer.bitCount(bitmap)];
+            int slot = 0;
+            for (int i = 0; i < 1 << BITS; i++) {
+                if (starts[i + 1] > starts[i]) {
+                    slots[slot++] = build(leaves, from + starts[i], from + starts[i + 1], shift + BITS, scratch);
+                }
+            }
+            return new BitmapNode(bitmap, slots);
+        }
+
+        // Every leaf here has the same full hash; merge duplicate UUIDs and keep the rest side by side
+        private static Object buildCollision(Leaf[] leaves, int from, int to) {
+            Leaf[] merged = new Leaf[to - from];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                Leaf leaf = leaves[i];
+                int existing = -1;
+                for (int j = 0; j < count; j++) {
+                    if (merged[j].matches(leaf.msb, leaf.lsb)) {
+                        existing = j;
+                        break;
+                    }
+                }
+                if (existing >= 0) {
+                    Leaf previous = merged[existing];
+                    merged[existing] = new Leaf(previous.msb, previous.lsb, previous.hash, previous.tiers | leaf.tiers);
+                } else {
+                    merged[count++] = leaf;
+                }
+            }
+            return count == 1 ? merged[0] : new CollisionNode(merged[0].hash, Arrays.copyOf(merged, count));
+        }
+    }
+}
@@ -4,42 +4,83 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import dev.visoftware.artiferrium.Artiferrium;
+import dev.visoftware.artiferrium.api.AllowlistInfo;
+import dev.visoftware.artiferrium.config.Config;
 import dev.visoftware.artiferrium.constants.ApiConstants;
+import dev.visoftware.artiferrium.http.ApiClient;
+import dev.visoftware.artiferrium.http.ApiRequest;
+import dev.visoftware.artiferrium.http.ApiResponse;
+import dev.visoftware.artiferrium.jfr.AccessDecisionEvent;
+import dev.visoftware.artiferrium.jfr.AllowlistCacheEvent;
+import dev.visoftware.artiferrium.jfr.AllowlistRefreshEvent;
+import dev.visoftware.artiferrium.logging.ThrottledLog;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import dev.visoftware.artiferrium.model.AccessDecision;
 import dev.visoftware.artiferrium.model.AllowedUser;
+import dev.visoftware.artiferrium.model.AllowlistTier;
+import jdk.jfr.EventType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.net.InetAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class AllowlistService {
+public class AllowlistService implements ManagedService {
     private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
-    private static final long REFRESH_INTERVAL = 15; // minutes
+    private static final ThrottledLog THROTTLED = new ThrottledLog(LOGGER);
+    private static final EventType ACCESS_DECISION = EventType.getEventType(AccessDecisionEvent.class);
+    private static final long REFRESH_INTERVAL = 15 * 60; // seconds
     private static final String CONFIG_FOLDER = "visoftware";
     private static final String CACHE_FILE = "allowlist-cache.json";
+    private static final long SHARED_POLL_INTERVAL = 5; // seconds
+    private static final long EXPIRY_SWEEP_INTERVAL = 60; // seconds
     private static AllowlistService INSTANCE;
 
+    // Where a published change came from; only API changes count as syncs and speed up polling
+    private enum Source { API, CACHE, LOCAL }
+
     private final String sessionKey;
     private final String sessionId;
     private final Path cacheFilePath;
     private final Gson gson;
-    private final HttpClient client;
-    private final Set<String> allowedUuids;
-    private final ScheduledExecutorService executor;
+    // Immutable; every change publishes a new version, so readers on the server thread never see a partial list
+    private volatile AllowlistIndex index;
+    private volatile NetworkRules networkRules = NetworkRules.EMPTY;
+    // Guarded by this; expiry per player, for the entries that have one
+    private final Map<UUID, Long> expiries = new HashMap<>();
+    // Size of expiries as of the last publish, readable without the monitor
+    private volatile int expiryCount;
+    private volatile String backendVersion;
+    // When heartbeats last advertised an allowlist version; while they do, the periodic poll stands down
+    private volatile long lastAdvertisedMillis;
+    private volatile String lastAdvertisedVersion;
+    private final AtomicBoolean versionFetchPending = new AtomicBoolean();
+    private final AdaptiveInterval refreshInterval = new AdaptiveInterval(REFRESH_INTERVAL, 60, 60 * 60);
+    private final SharedAllowlistCache sharedCache;
+    private long lastSharedGeneration;
+    // Serializes refreshes; the service monitor is only taken to apply a fetched list, never across the request
+    private final Object refreshLock = new Object();
+    // Set while lookups are served from the shared file and the private index was dropped
+    private volatile boolean followingShared;
     private boolean isPrivateServer;
 
     public AllowlistService(String sessionKey, String sessionId, Path configDir, boolean isPrivateServer) {
@@ -53,18 +94,35 @@ public class AllowlistService {
         }
         this.cacheFilePath = visoftwareConfigDir.resolve(CACHE_FILE);
         this.gson = new Gson();
-        this.client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
-        this.allowedUuids = new HashSet<>();
-        this.executor = Executors.newSingleThreadScheduledExecutor();
+        this.index = AllowlistIndex.EMPTY;
         this.isPrivateServer = isPrivateServer;
+        this.sharedCache = isPrivateServer ? openSharedCache() : null;
         INSTANCE = this;
+        ServiceRuntime.get().register(this);
 
         loadCachedData();
 
         if (isPrivateServer) {
-            startPeriodicRefresh();
+            if (sharedCache == null || sharedCache.isLeader()) {
+                startPeriodicRefresh();
+            } else {
+                LOGGER.info("Using the shared allowlist cache maintained by another instance on this host");
+                scheduleSharedPoll();
+            }
+        }
+    }
+
+    private SharedAllowlistCache openSharedCache() {
+        if (!Config.get().isSharedAllowlistCache() || Artiferrium.getServerData() == null) {
+            return null;
+        }
+
+        try {
+            return SharedAllowlistCache.open(Config.get().getSharedAllowlistCacheDir(),
+                Artiferrium.getServerData().getId());
+        } catch (IOException e) {
+            LOGGER.error("Failed to open shared allowlist cache, falling back to a private cache", e);
+            return null;
         }
     }
 
@@ -84,18 +142,208 @@ public class AllowlistService {
         }
     }
 
+    public static CompletableFuture<Void> refreshCachedAllowlistAsync() {
+        if (INSTANCE == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("AllowlistService has not been initialized"));
+        }
+        return INSTANCE.runInBackground(INSTANCE::refreshAllowlist);
+    }
+
+    public static CompletableFuture<Void> reloadFromCacheAsync() {
+        if (INSTANCE == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("AllowlistService has not been initialized"));
+        }
+        return INSTANCE.runInBackground(INSTANCE::loadCachedData);
+    }
+
+    /**
+     * Grants and revokes players locally, applied to the index like a backend delta and saved to the
+     * cache. Entries use the backend's format; the changes last until the backend next sends its full list.
+     */
+    public static CompletableFuture<Void> applyLocalChangesAsync(JsonArray granted, JsonArray revoked) {
+        if (INSTANCE == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("AllowlistService has not been initialized"));
+        }
+        return INSTANCE.runInBackground(() -> INSTANCE.applyLocalChanges(granted, revoked));
+    }
+
+    private interface BackgroundTask {
+        void run() throws Exception;
+    }
+
+    private CompletableFuture<Void> runInBackground(BackgroundTask task) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            ServiceRuntime.get().executeBlocking(() -> {
+                try {
+                    task.run();
+                    result.complete(null);
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IllegalStateException("AllowlistService is shutting down"));
+        }
+        return result;
+    }
+
+    public static void applyRefreshHint(long seconds) {
+        if (INSTANCE != null) {
+            INSTANCE.refreshInterval.applyHint(seconds);
+        }
+    }
+
+    /**
+     * Called with the allowlist version the backend reported on a heartbeat; fetches right away when
+     * it differs from the version this instance holds.
+     */
+    public static void onAdvertisedVersion(String version) {
+        AllowlistService service = INSTANCE;
+        if (service == null || version == null || !service.isPrivateServer) return;
+        if (service.sharedCache != null && !service.sharedCache.isLeader()) return;
+
+        service.lastAdvertisedMillis = System.currentTimeMillis();
+        service.lastAdvertisedVersion = version;
+        if (version.equals(service.backendVersion) || !service.versionFetchPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        LOGGER.debug("Backend advertised allowlist version {} (holding {}), fetching", version, service.backendVersion);
+        service.runInBackground(service::refreshAllowlist).whenComplete((ignored, error) -> {
+            service.versionFetchPending.set(false);
+            if (error != null) {
+                THROTTLED.error("allowlist refresh", "Failed to refresh allowlist: {}", error.getMessage());
+            }
+        });
+    }
+
     private void startPeriodicRefresh() {
-        executor.scheduleAtFixedRate(() -> {
+        scheduleRefresh(0);
+        scheduleExpirySweep();
+    }
+
+    private void scheduleExpirySweep() {
+        ServiceRuntime.get().schedule(() -> {
+            try {
+                removeExpired();
+            } catch (Exception e) {
+                THROTTLED.error("allowlist expiry", "Failed to remove expired allowlist entries: {}", e.getMessage());
+            }
+            scheduleExpirySweep();
+        }, EXPIRY_SWEEP_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    private void scheduleRefresh(long delaySeconds) {
+        ServiceRuntime.get().scheduleBlocking(() -> {
+            // The poll is only a fallback for backends that do not advertise versions on heartbeats
+            boolean advertised = System.currentTimeMillis() - lastAdvertisedMillis < REFRESH_INTERVAL * 1000;
+            if (!advertised || backendVersion == null) {
+                try {
+                    refreshAllowlist();
+                } catch (Exception e) {
+                    THROTTLED.error("allowlist refresh", "Failed to refresh allowlist: {}", e.getMessage());
+                }
+            }
+
+            long nextDelay = refreshInterval.nextDelaySeconds();
+            LOGGER.debug("Next allowlist refresh in {}s", nextDelay);
+            scheduleRefresh(nextDelay);
+        }, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    // Followers watch the shared file for new generations and take over if the leader goes away
+    private void scheduleSharedPoll() {
+        ServiceRuntime.get().schedule(() -> {
             try {
-                refreshAllowlist();
+                if (sharedCache.tryBecomeLeader()) {
+                    adoptSharedList();
+                    startPeriodicRefresh();
+                    return;
+                }
+
+                long generation = sharedCache.getGeneration();
+                if (generation > 0 && generation != lastSharedGeneration) {
+                    lastSharedGeneration = generation;
+                    // Lookups are served from the mapped file now; drop the private copy
+                    synchronized (this) {
+                        index = AllowlistIndex.EMPTY;
+                        expiries.clear();
+                        expiryCount = 0;
+                        followingShared = true;
+                    }
+                    networkRules = readSharedRules();
+                    StatusTracker.get().allowlistUpdated(previous -> new AllowlistInfo(
+                        sharedCache.size(),
+                        previous.getVersion() + 1,
+                        sharedCache.getPublishedAtMillis(),
+                        previous.getLastCacheLoadMillis()
+                    ));
+                    LOGGER.debug("Picked up shared allowlist generation {} ({} players)", generation, sharedCache.size());
+                }
             } catch (Exception e) {
-                LOGGER.error("Failed to refresh allowlist: {}", e.getMessage());
+                THROTTLED.error("shared allowlist poll", "Failed to poll shared allowlist cache: {}", e.getMessage());
+            }
+            scheduleSharedPoll();
+        }, SHARED_POLL_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    private NetworkRules readSharedRules() {
+        try {
+            String json = sharedCache.readRules();
+            return json != null ? NetworkRules.parse(gson.fromJson(json, JsonArray.class)) : NetworkRules.EMPTY;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to read shared network rules, keeping the previous ones: {}", e.getMessage());
+            return networkRules;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Allowlist";
+    }
+
+    @Override
+    public void stop() {
+        shutdown();
+    }
+
+    @Override
+    public Map<String, Object> diagnostics() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("private_server", isPrivateServer);
+        state.put("entries", index.size());
+        state.put("network_rules", networkRules.size());
+        state.put("access_policy", Config.get().getAccessPolicy().getId());
+        state.put("backend_version", backendVersion);
+        state.put("last_advertised_version_at", lastAdvertisedMillis > 0 ? Instant.ofEpochMilli(lastAdvertisedMillis) : "never");
+        state.put("version_fetch_pending", versionFetchPending.get());
+        state.put("entries_with_expiry", expiryCount);
+        if (sharedCache != null) {
+            state.put("shared_cache", sharedCache.isLeader() ? "leader" : "follower");
+            state.put("shared_cache_generation", sharedCache.getGeneration());
+            state.put("shared_cache_entries", sharedCache.size());
+        }
+        try {
+            state.put("cache_file", cacheFilePath);
+            state.put("cache_file_bytes", Files.exists(cacheFilePath) ? Files.size(cacheFilePath) : "missing");
+            if (Files.exists(cacheFilePath)) {
+                state.put("cache_file_modified", Files.getLastModifiedTime(cacheFilePath));
             }
-        }, 0, REFRESH_INTERVAL, TimeUnit.MINUTES);
+        } catch (IOException e) {
+            state.put("cache_file_error", e.getMessage());
+        }
+        return state;
     }
 
     public void shutdown() {
-        executor.shutdown();
+        if (sharedCache != null) {
+            try {
+                sharedCache.close();
+            } catch (IOException e) {
+                LOGGER.error("Failed to release shared allowlist cache", e);
+            }
+        }
     }
 
     private String normalizeUuid(String uuid) {
@@ -107,98 +355,440 @@ public class AllowlistService {
 
         String normalizedPlayerUuid = normalizeUuid(playerUuid);
         LOGGER.debug("Checking access for UUID: {} (normalized: {})", playerUuid, normalizedPlayerUuid);
-        LOGGER.debug("Current allowlist: {}", allowedUuids);
 
-        boolean isAllowed = allowedUuids.stream()
-                .map(this::normalizeUuid)
-                .anyMatch(uuid -> uuid.equals(normalizedPlayerUuid));
+        boolean isAllowed;
+        try {
+            isAllowed = normalizedPlayerUuid.length() == 32 && lookupTiers(
+                Long.parseUnsignedLong(normalizedPlayerUuid, 0, 16, 16),
+                Long.parseUnsignedLong(normalizedPlayerUuid, 16, 32, 16)) >= 0;
+        } catch (NumberFormatException e) {
+            isAllowed = false;
+        }
 
         LOGGER.debug("Access {} for UUID: {}", isAllowed ? "granted" : "denied", playerUuid);
         return isAllowed;
     }
 
+    public boolean isAllowed(UUID playerUuid) {
+        if (!isPrivateServer) return true;
+        // Without a recording that wants access decisions, don't even allocate the event
+        if (!ACCESS_DECISION.isEnabled()) {
+            return lookupTiers(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits()) >= 0;
+        }
+
+        AccessDecisionEvent event = new AccessDecisionEvent();
+        event.begin();
+        int tiers = lookupTiers(playerUuid.getMostSignificantBits(), playerUuid.getLeastSignificantBits());
+        event.end();
+        // Only pay for the UUID string when the recording actually wants this decision
+        if (event.shouldCommit()) {
+            event.player = playerUuid.toString();
+            event.allowed = tiers >= 0;
+            event.tiers = tiers;
+            event.source = sharedCache != null && sharedCache.isReady() ? "shared" : "index";
+            event.commit();
+        }
+        return tiers >= 0;
+    }
+
+    /**
+     * Checks the player and, if the allowlist carries network rules, the address they connect from,
+     * combined under the configured {@link dev.visoftware.artiferrium.model.AccessPolicy}. A null
+     * address (e.g. an in-memory connection) is judged on the player alone.
+     */
+    public AccessDecision checkAccess(UUID playerUuid, InetAddress address) {
+        boolean playerAllowed = isAllowed(playerUuid);
+        NetworkRules rules = networkRules;
+        if (!isPrivateServer || address == null || rules.isEmpty()) {
+            return playerAllowed ? AccessDecision.ALLOWED : AccessDecision.NOT_ALLOWLISTED;
+        }
+
+        boolean allowed = switch (Config.get().getAccessPolicy()) {
+            case UUID_ONLY -> playerAllowed;
+            case UUID_AND_NETWORK -> playerAllowed && rules.permits(address);
+            case UUID_OR_NETWORK -> playerAllowed || rules.permits(address);
+        };
+        if (allowed) return AccessDecision.ALLOWED;
+        if (!playerAllowed) return AccessDecision.NOT_ALLOWLISTED;
+
+        ArtiferriumMetrics.get().counter("access.denied_network").increment();
+        LOGGER.debug("Player {} is allowlisted but {} is outside the permitted networks", playerUuid, address);
+        return AccessDecision.NETWORK_DENIED;
+    }
+
+    /**
+     * @return the player's {@link dev.visoftware.artiferrium.model.AllowlistTier} bitmask, -1 if the
+     * player is not on the allowlist, or 0 on public servers where nobody has a tier
+     */
+    public static int tiersOf(UUID player) {
+        AllowlistService service = INSTANCE;
+        if (service == null || !service.isPrivateServer) return 0;
+        return service.lookupTiers(player.getMostSignificantBits(), player.getLeastSignificantBits());
+    }
+
+    // Membership and tiers come out of the same lookup, so checking a tier costs nothing extra
+    private int lookupTiers(long msb, long lsb) {
+        SharedAllowlistCache shared = sharedCache;
+        if (shared != null && shared.isReady()) {
+            long flags = shared.lookup(msb, lsb);
+            return flags < 0 ? -1 : (int) flags;
+        }
+        return index.tiersOf(msb, lsb);
+    }
+
     public void refreshAllowlist() throws Exception {
+        synchronized (refreshLock) {
+            fetchAndApply();
+        }
+    }
+
+    private void fetchAndApply() throws Exception {
         if (!isPrivateServer) {
             throw new IllegalStateException("Cannot refresh allowlist on a public server");
         }
+        if (sharedCache != null && !sharedCache.tryBecomeLeader()) {
+            throw new IllegalStateException("The allowlist on this host is maintained by another instance; " +
+                "reload it there or wait for the shared cache to pick up the change");
+        }
+        adoptSharedList();
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(ApiConstants.SERVER_ALLOWLIST_ENDPOINT))
-                .header("Content-Type", "application/json")
-                .header("sessionkey", sessionKey)
-                .header("sessionid", sessionId)
-                .GET()
-                .build();
+        // Anything fetched from here on is at least as new as the version heartbeats advertised so far
+        String advertisedVersion = lastAdvertisedVersion;
+        String heldVersion = backendVersion;
+        AllowlistRefreshEvent event = new AllowlistRefreshEvent();
+        event.begin();
+        try {
+            ApiRequest request = ApiRequest.get(ApiConstants.SERVER_ALLOWLIST_ENDPOINT)
+                    .header("sessionkey", sessionKey)
+                    .header("sessionid", sessionId);
+            if (heldVersion != null) {
+                // Lets the backend answer with just the changes since the version we hold
+                request.header("allowlistversion", heldVersion);
+            }
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            ApiResponse response = ApiClient.get().send(request);
+            event.bytes = response.bodyBytes();
+            event.parseTime = response.readNanos();
 
-        if (response.statusCode() != 200) {
-            throw new Exception("Failed to refresh allowlist. Status code: " + response.statusCode());
+            if (response.statusCode() != 200) {
+                throw new Exception("Failed to refresh allowlist. Status code: " + response.statusCode());
+            }
+
+            JsonObject jsonResponse = response.json();
+            if (!"OK".equals(jsonResponse.get("status").getAsString())) {
+                throw new Exception("Failed to refresh allowlist: " + jsonResponse.get("message").getAsString());
+            }
+
+            event.delta = jsonResponse.has("delta") && jsonResponse.get("delta").getAsBoolean();
+            // Full responses always describe the rules, deltas only when they changed
+            NetworkRules rules = !event.delta || jsonResponse.has("networkRules")
+                ? NetworkRules.parse(jsonResponse.getAsJsonArray("networkRules")) : null;
+
+            synchronized (this) {
+                if (event.delta && !Objects.equals(heldVersion, backendVersion)) {
+                    // A cache reload or takeover replaced the list the delta was computed against
+                    throw new IllegalStateException("The allowlist changed during the refresh; the next refresh fetches it in full");
+                }
+                long applyStart = System.nanoTime();
+                // Applied before the list so a shared cache publish carries the matching rules to followers
+                if (rules != null) {
+                    applyNetworkRules(rules);
+                }
+                if (event.delta) {
+                    applyDelta(jsonResponse, Source.API);
+                } else {
+                    applyFullList(jsonResponse.getAsJsonArray("allowedUsers"));
+                }
+                event.applyTime = System.nanoTime() - applyStart;
+                event.entries = index.size();
+                // Without a version in the response, fall back to the advertised one so the same advertisement
+                // does not trigger a full fetch on every heartbeat
+                backendVersion = jsonResponse.has("version") ? jsonResponse.get("version").getAsString() : advertisedVersion;
+                saveToCacheFile(snapshotUsers());
+            }
+            event.success = true;
+            THROTTLED.resolve("allowlist refresh");
+        } finally {
+            event.commit();
         }
+    }
 
-        JsonObject jsonResponse = gson.fromJson(response.body(), JsonObject.class);
-        if (!"OK".equals(jsonResponse.get("status").getAsString())) {
-            throw new Exception("Failed to refresh allowlist: " + jsonResponse.get("message").getAsString());
+    private synchronized void applyLocalChanges(JsonArray granted, JsonArray revoked) throws IOException {
+        if (!isPrivateServer) {
+            throw new IllegalStateException("Cannot change the allowlist on a public server");
+        }
+        if (sharedCache != null && !sharedCache.tryBecomeLeader()) {
+            throw new IllegalStateException("The allowlist on this host is maintained by another instance");
         }
+        adoptSharedList();
+        if (followingShared) {
+            throw new IllegalStateException("The allowlist is incomplete until the next refresh; try again after it");
+        }
+
+        JsonObject delta = new JsonObject();
+        if (granted != null) delta.add("granted", granted);
+        if (revoked != null) delta.add("revoked", revoked);
+        applyDelta(delta, Source.LOCAL);
+        saveToCacheFile(snapshotUsers());
+    }
 
-        allowedUuids.clear();
+    // A follower that just took over holds no list of its own; start from what the previous leader
+    // published so a delta or local change is not applied to an empty index
+    private synchronized void adoptSharedList() {
+        if (!followingShared) return;
+
+        // Expiries and the backend version are not in the shared file; the next refresh fetches in full
+        backendVersion = null;
+        long[] entries = sharedCache.entries();
+        if (entries == null) {
+            // Damaged or gone; the list stays incomplete until that full refresh
+            LOGGER.warn("Took over the shared allowlist cache but could not read the previous list");
+            return;
+        }
+        AllowlistIndex.Builder builder = new AllowlistIndex.Builder();
+        for (int i = 0; i < entries.length; i += SharedAllowlistCache.ENTRY_LONGS) {
+            builder.put(entries[i], entries[i + 1], (int) entries[i + 2]);
+        }
+        index = builder.build();
+        followingShared = false;
+        LOGGER.info("Took over the shared allowlist cache with {} players", index.size());
+    }
 
-        JsonArray allowedUsers = jsonResponse.getAsJsonArray("allowedUsers");
-        List<AllowedUser> users = new ArrayList<>();
+    private void applyFullList(JsonArray allowedUsers) {
+        AllowlistIndex.Builder builder = new AllowlistIndex.Builder();
+        Map<UUID, Long> newExpiries = new HashMap<>();
 
         for (JsonElement element : allowedUsers) {
-            String uuid = element.getAsString();
-            allowedUuids.add(uuid);
-            users.add(new AllowedUser(uuid, null));
+            AllowedUser user = parseUser(element);
+            UUID uuid = parseUuid(user.getUuid());
+            if (uuid == null || !user.isValid()) continue;
+
+            builder.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), user.getTiers());
+            if (user.getExpiryDate() != null) {
+                newExpiries.put(uuid, toMillis(user.getExpiryDate()));
+            }
         }
 
-        saveToCacheFile(users);
+        AllowlistIndex refreshed = builder.build();
+        expiries.clear();
+        expiries.putAll(newExpiries);
+        followingShared = false;
+        publish(refreshed, !refreshed.sameEntries(index), Source.API);
 
-        LOGGER.info("Successfully refreshed allowlist cache. Total allowed players: " + allowedUuids.size());
+        LOGGER.info("Successfully refreshed allowlist cache. Total allowed players: " + refreshed.size());
     }
 
-    private void loadCachedData() {
-        if (Files.exists(cacheFilePath)) {
-            try (Reader reader = Files.newBufferedReader(cacheFilePath)) {
-                allowedUuids.clear();
+    // Each grant or revocation is an O(log n) copy-on-write update of the current index
+    private void applyDelta(JsonObject delta, Source source) {
+        AllowlistIndex updated = index;
 
-                JsonObject cache = gson.fromJson(reader, JsonObject.class);
-                if (cache == null) {
-                    LOGGER.warn("Allowlist cache file is empty or malformed. No users loaded.");
-                    return;
-                }
-                JsonArray users = cache.getAsJsonArray("users");
-                if (users == null) {
-                    LOGGER.warn("No 'users' array found in allowlist cache file.");
-                    return;
+        JsonArray granted = delta.getAsJsonArray("granted");
+        if (granted != null) {
+            for (JsonElement element : granted) {
+                AllowedUser user = parseUser(element);
+                UUID uuid = parseUuid(user.getUuid());
+                if (uuid == null) continue;
+
+                updated = updated.with(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), user.getTiers());
+                if (user.getExpiryDate() != null) {
+                    expiries.put(uuid, toMillis(user.getExpiryDate()));
+                } else {
+                    expiries.remove(uuid);
                 }
+            }
+        }
 
-                for (JsonElement element : users) {
-                    JsonObject user = element.getAsJsonObject();
-                    String uuid = user.get("uuid").getAsString();
-                    JsonElement expiryElement = user.get("expiryDate");
+        JsonArray revoked = delta.getAsJsonArray("revoked");
+        if (revoked != null) {
+            for (JsonElement element : revoked) {
+                UUID uuid = parseUuid(element.getAsString());
+                if (uuid == null) continue;
 
-                    uuid = normalizeUuid(uuid);
-                    if (uuid.length() != 32) {
-                        LOGGER.warn("Invalid UUID in cache file: {} (wrong length)", uuid);
-                        continue;
-                    }
+                updated = updated.without(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+                expiries.remove(uuid);
+            }
+        }
+
+        publish(updated, updated != index, source);
+        LOGGER.info("Applied allowlist changes ({} granted, {} revoked). Total allowed players: {}",
+            granted != null ? granted.size() : 0, revoked != null ? revoked.size() : 0, updated.size());
+    }
 
-                    if (expiryElement == null || expiryElement.isJsonNull() ||
-                        LocalDateTime.parse(expiryElement.getAsString()).isAfter(LocalDateTime.now())) {
-                        allowedUuids.add(uuid);
-                        LOGGER.debug("Loaded UUID from cache: {}", uuid);
+    private void applyNetworkRules(NetworkRules rules) {
+        if (!rules.toJson().equals(networkRules.toJson())) {
+            LOGGER.info("Allowlist network rules updated ({} rules)", rules.size());
+        }
+        networkRules = rules;
+    }
+
+    private synchronized void removeExpired() {
+        long now = System.currentTimeMillis();
+        AllowlistIndex updated = index;
+        for (Iterator<Map.Entry<UUID, Long>> it = expiries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<UUID, Long> entry = it.next();
+            if (entry.getValue() <= now) {
+                UUID uuid = entry.getKey();
+                updated = updated.without(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+                it.remove();
+            }
+        }
+
+        if (updated != index) {
+            LOGGER.debug("Removed {} expired allowlist entries", index.size() - updated.size());
+            publish(updated, true, Source.LOCAL);
+        }
+    }
+
+    // Entries are plain UUID strings (members) or objects carrying role tiers and an expiry
+    private static AllowedUser parseUser(JsonElement element) {
+        if (!element.isJsonObject()) {
+            return new AllowedUser(element.getAsString(), null);
+        }
+        JsonObject entry = element.getAsJsonObject();
+        JsonElement expiry = entry.get("expiryDate");
+        return new AllowedUser(
+            entry.get("uuid").getAsString(),
+            expiry == null || expiry.isJsonNull() ? null : LocalDateTime.parse(expiry.getAsString()),
+            AllowlistTier.parseMask(entry.get("tiers")));
+    }
+
+    private static UUID parseUuid(String uuid) {
+        String normalized = uuid.replace("-", "");
+        if (normalized.length() == 32) {
+            try {
+                return new UUID(Long.parseUnsignedLong(normalized, 0, 16, 16),
+                    Long.parseUnsignedLong(normalized, 16, 32, 16));
+            } catch (NumberFormatException e) {
+                // Fall through to the warning
+            }
+        }
+        LOGGER.warn("Skipping malformed UUID {} in allowlist", uuid);
+        return null;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private synchronized List<AllowedUser> snapshotUsers() {
+        List<AllowedUser> users = new ArrayList<>(index.size());
+        index.forEach((msb, lsb, tiers) -> {
+            UUID uuid = new UUID(msb, lsb);
+            Long expiresAt = expiries.get(uuid);
+            LocalDateTime expiry = expiresAt == null ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault());
+            users.add(new AllowedUser(uuid.toString(), expiry, tiers));
+        });
+        return users;
+    }
+
+    private synchronized void loadCachedData() {
+        if (!Files.exists(cacheFilePath)) return;
+
+        AllowlistCacheEvent event = new AllowlistCacheEvent();
+        event.begin();
+        event.operation = "load";
+        try {
+            event.bytes = Files.size(cacheFilePath);
+        } catch (IOException e) {
+            // Reported by the read below
+        }
+        try {
+            event.success = readCacheFile();
+            event.entries = index.size();
+        } finally {
+            event.commit();
+        }
+    }
+
+    private boolean readCacheFile() {
+        try (Reader reader = Files.newBufferedReader(cacheFilePath)) {
+            JsonObject cache = gson.fromJson(reader, JsonObject.class);
+            if (cache == null) {
+                LOGGER.warn("Allowlist cache file is empty or malformed. No users loaded.");
+                return false;
+            }
+            JsonArray users = cache.getAsJsonArray("users");
+            if (users == null) {
+                LOGGER.warn("No 'users' array found in allowlist cache file.");
+                return false;
+            }
+
+            AllowlistIndex.Builder builder = new AllowlistIndex.Builder();
+            Map<UUID, Long> loadedExpiries = new HashMap<>();
+            for (JsonElement element : users) {
+                // Caches written before tiers existed have no "tiers" and load as members
+                AllowedUser user = parseUser(element.getAsJsonObject());
+                UUID uuid = parseUuid(user.getUuid());
+                if (uuid != null && user.isValid()) {
+                    builder.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), user.getTiers());
+                    if (user.getExpiryDate() != null) {
+                        loadedExpiries.put(uuid, toMillis(user.getExpiryDate()));
                     }
+                    LOGGER.debug("Loaded UUID from cache: {}", uuid);
                 }
-
-                LOGGER.info("Loaded " + allowedUuids.size() + " allowed players from cache");
-            } catch (IOException e) {
-                LOGGER.error("Error loading allowlist cache", e);
             }
+
+            AllowlistIndex loaded = builder.build();
+            expiries.clear();
+            expiries.putAll(loadedExpiries);
+            networkRules = NetworkRules.parse(cache.getAsJsonArray("networkRules"));
+            // The backend version of the cached list is unknown, so the next refresh fetches it in full
+            backendVersion = null;
+            publish(loaded, !loaded.sameEntries(index), Source.CACHE);
+            LOGGER.info("Loaded " + loaded.size() + " allowed players from cache");
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Error loading allowlist cache", e);
+            return false;
+        }
+    }
+
+    private synchronized void publish(AllowlistIndex updated, boolean changed, Source source) {
+        index = updated;
+        expiryCount = expiries.size();
+        if (changed && source == Source.API) {
+            refreshInterval.markChanged();
+        }
+        if (sharedCache != null && sharedCache.isLeader()) {
+            publishShared(updated);
+        }
+
+        long now = System.currentTimeMillis();
+        StatusTracker.get().allowlistUpdated(previous -> new AllowlistInfo(
+            updated.size(),
+            changed ? previous.getVersion() + 1 : previous.getVersion(),
+            source == Source.API ? now : previous.getLastApiSyncMillis(),
+            source == Source.CACHE ? now : previous.getLastCacheLoadMillis()
+        ));
+    }
+
+    private void publishShared(AllowlistIndex published) {
+        List<long[]> parsed = new ArrayList<>(published.size());
+        published.forEach((msb, lsb, tiers) -> parsed.add(new long[] {msb, lsb, tiers}));
+        parsed.sort(Comparator.<long[]>comparingLong(e -> e[0]).thenComparingLong(e -> e[1]));
+
+        // The flags word of each shared entry carries the tier bitmask
+        long[] entries = new long[parsed.size() * SharedAllowlistCache.ENTRY_LONGS];
+        for (int i = 0; i < parsed.size(); i++) {
+            System.arraycopy(parsed.get(i), 0, entries, i * SharedAllowlistCache.ENTRY_LONGS, 3);
+        }
+
+        try {
+            // Followers read the rules file when they see the new generation, so it goes first
+            sharedCache.writeRules(gson.toJson(networkRules.toJson()));
+            sharedCache.publish(entries);
+            lastSharedGeneration = sharedCache.getGeneration();
+        } catch (IOException e) {
+            LOGGER.error("Failed to publish the shared allowlist cache", e);
         }
     }
 
     private void saveToCacheFile(List<AllowedUser> users) {
+        AllowlistCacheEvent event = new AllowlistCacheEvent();
+        event.begin();
+        event.operation = "save";
+        event.entries = users.size();
         try {
             JsonObject cache = new JsonObject();
             JsonArray usersArray = new JsonArray();
@@ -209,16 +799,24 @@ public class AllowlistService {
                 if (user.getExpiryDate() != null) {
                     userObj.addProperty("expiryDate", user.getExpiryDate().toString());
                 }
+                userObj.add("tiers", AllowlistTier.toJson(user.getTiers()));
                 usersArray.add(userObj);
             }
 
             cache.add("users", usersArray);
+            cache.add("networkRules", networkRules.toJson());
 
             try (Writer writer = Files.newBufferedWriter(cacheFilePath)) {
                 gson.toJson(cache, writer);
             }
+            event.success = true;
+            if (event.shouldCommit()) {
+                event.bytes = Files.size(cacheFilePath);
+            }
         } catch (IOException e) {
             LOGGER.error("Error saving allowlist cache", e);
+        } finally {
+            event.commit();
         }
     }
 }
@@ -1,38 +1,41 @@
 package dev.visoftware.artiferrium.service;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import dev.visoftware.artiferrium.constants.ApiConstants;
-
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
+import dev.visoftware.artiferrium.http.ApiClient;
+import dev.visoftware.artiferrium.http.ApiRequest;
+import dev.visoftware.artiferrium.http.ApiResponse;
+import dev.visoftware.artiferrium.jfr.AuthenticationEvent;
 
 public class AuthenticationService {
     private String sessionKey;
     private String sessionId;
 
     public JsonObject authenticate(String serverKey) throws Exception {
-        HttpClient client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
+        AuthenticationEvent event = new AuthenticationEvent();
+        event.begin();
+        try {
+            JsonObject jsonResponse = requestSession(serverKey);
+            event.success = true;
+            JsonObject server = jsonResponse.getAsJsonObject("server");
+            event.privateServer = server != null && server.has("private") && server.get("private").getAsBoolean();
+            return jsonResponse;
+        } finally {
+            event.commit();
+        }
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(ApiConstants.SERVER_AUTH_ENDPOINT))
-                .header("Content-Type", "application/json")
-                .header("serverkey", serverKey)
-                .POST(HttpRequest.BodyPublishers.noBody())
-                .build();
+    private JsonObject requestSession(String serverKey) throws Exception {
+        ApiRequest request = ApiRequest.post(ApiConstants.SERVER_AUTH_ENDPOINT)
+                .header("serverkey", serverKey);
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        ApiResponse response = ApiClient.get().send(request);
 
         if (response.statusCode() != 200) {
             throw new Exception("Authentication failed with status code: " + response.statusCode());
         }
 
-        JsonObject jsonResponse = new Gson().fromJson(response.body(), JsonObject.class);
+        JsonObject jsonResponse = response.json();
         if (!"OK".equals(jsonResponse.get("status").getAsString())) {
             throw new Exception("Authentication failed: " + jsonResponse.get("message").getAsString());
         }
@@ -0,0 +1,291 @@
+package dev.visoftware.artiferrium.service;
+
+import dev.visoftware.artiferrium.Artiferrium;
+import dev.visoftware.artiferrium.login.AdmissionController;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Compact heartbeat encoding sent over one persistent connection instead of an HTTPS request per beat.
+ * <p>
+ * Every frame is a {@code u16} length followed by the payload; all numbers are big-endian.
+ * The connection opens with a hello ({@code version, 0, UTF sessionKey, UTF sessionId}); after that
+ * each heartbeat is a fixed 22-byte layout plus an optional JSON extension (the roster):
+ * <pre>
+ *   u8 version | u8 type (1 beat, 2 offline) | i64 session hash | i32 sequence
+ *   u16 players | u16 average tick (1/100 ms) | u16 admission queue | u16 extension length | extension
+ * </pre>
+ * Replies are {@code u8 version | u8 status | i32 sequence | u8 flags | u16 heartbeat interval |
+ * u16 allowlist interval | u16 message length | message | u8 allowlist version length | allowlist version},
+ * read field by field without a JSON tree. Interval fields of {@code 0xFFFF} mean no hint.
+ */
+final class BinaryHeartbeatChannel {
+    static final int VERSION = 1;
+    static final int TYPE_HELLO = 0;
+    static final int TYPE_HEARTBEAT = 1;
+    static final int TYPE_OFFLINE = 2;
+
+    static final int STATUS_OK = 0;
+    static final int STATUS_ERROR = 1;
+    static final int STATUS_UNKNOWN_SESSION = 2;
+
+    static final int FLAG_ROSTER_RESYNC = 1;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int READ_TIMEOUT_MILLIS = 10_000;
+    private static final int MAX_FRAME = 0xFFFF;
+    private static final int NO_HINT = 0xFFFF;
+
+    private final String host;
+    private final int port;
+    private final boolean tls;
+    private final String sessionKey;
+    private final String sessionId;
+    private final long sessionHash;
+    private final byte[] frame = new byte[MAX_FRAME];
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+    private int sequence;
+
+    /**
+     * @param address {@code tcp://host:port} or {@code tls://host:port}
+     */
+    BinaryHeartbeatChannel(String address, String sessionKey, String sessionId) {
+        URI uri = URI.create(address);
+        if (uri.getHost() == null || uri.getPort() < 0) {
+            throw new IllegalArgumentException("Binary heartbeat address must look like tls://host:port: " + address);
+        }
+        this.host = uri.getHost();
+        this.port = uri.getPort();
+        if ("tls".equalsIgnoreCase(uri.getScheme())) {
+            this.tls = true;
+        } else if ("tcp".equalsIgnoreCase(uri.getScheme())) {
+            this.tls = false;
+        } else {
+            throw new IllegalArgumentException("Binary heartbeat address must use tls:// or tcp://: " + address);
+        }
+        this.sessionKey = sessionKey;
+        this.sessionId = sessionId;
+        this.sessionHash = hashSession(sessionKey, sessionId);
+    }
+
+    synchronized Reply heartbeat(int playerCount, byte[] roster) throws IOException {
+        return exchange(TYPE_HEARTBEAT, playerCount, roster);
+    }
+
+    synchronized Reply offline() throws IOException {
+        return exchange(TYPE_OFFLINE, 0, null);
+    }
+
+    synchronized void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Closing anyway
+            }
+        }
+        socket = null;
+        in = null;
+        out = null;
+    }
+
+    private Reply exchange(int type, int playerCount, byte[] extension) throws IOException {
+        if (extension != null && extension.length > MAX_FRAME - 22) {
+            throw new IOException("Heartbeat extension too large for a binary frame: " + extension.length);
+        }
+        try {
+            if (socket == null) {
+                connect();
+            }
+            Reply reply = send(type, playerCount, extension);
+            if (reply.status == STATUS_UNKNOWN_SESSION) {
+                // The backend restarted or dropped our hello; introduce ourselves again once
+                hello();
+                reply = send(type, playerCount, extension);
+            }
+            return reply;
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private Reply send(int type, int playerCount, byte[] extension) throws IOException {
+        int seq = ++sequence;
+        int extensionLength = extension != null ? extension.length : 0;
+
+        out.writeShort(22 + extensionLength);
+        out.writeByte(VERSION);
+        out.writeByte(type);
+        out.writeLong(sessionHash);
+        out.writeInt(seq);
+        out.writeShort(clampU16(playerCount));
+        out.writeShort(clampU16(Math.round(Artiferrium.getAverageTickMillis() * 100)));
+        out.writeShort(clampU16(AdmissionController.get().getQueueLength()));
+        out.writeShort(extensionLength);
+        if (extensionLength > 0) {
+            out.write(extension);
+        }
+        out.flush();
+        ArtiferriumMetrics.get().counter("heartbeat.binary.bytes_sent").add(2 + 22 + extensionLength);
+
+        Reply reply = readReply();
+        if (reply.status != STATUS_UNKNOWN_SESSION && reply.sequence != seq) {
+            throw new IOException("Binary heartbeat reply out of sequence: expected " + seq + ", got " + reply.sequence);
+        }
+        return reply;
+    }
+
+    private void connect() throws IOException {
+        SocketFactory factory = tls ? SSLSocketFactory.getDefault() : SocketFactory.getDefault();
+        Socket connected = factory.createSocket();
+        if (connected instanceof SSLSocket ssl) {
+            // The hello carries the session key, so the certificate must match the host we meant to reach
+            SSLParameters parameters = ssl.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+            ssl.setSSLParameters(parameters);
+        }
+        connected.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+        connected.setSoTimeout(READ_TIMEOUT_MILLIS);
+        connected.setTcpNoDelay(true);
+        connected.setKeepAlive(true);
+        socket = connected;
+        in = new DataInputStream(new BufferedInputStream(connected.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(connected.getOutputStream()));
+        hello();
+    }
+
+    private void hello() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream payload = new DataOutputStream(buffer);
+        payload.writeByte(VERSION);
+        payload.writeByte(TYPE_HELLO);
+        payload.writeUTF(sessionKey);
+        payload.writeUTF(sessionId);
+
+        out.writeShort(buffer.size());
+        buffer.writeTo(out);
+        out.flush();
+
+        Reply reply = readReply();
+        if (reply.status != STATUS_OK) {
+            throw new IOException("Binary heartbeat hello rejected: " + reply.message);
+        }
+    }
+
+    private Reply readReply() throws IOException {
+        int length = in.readUnsignedShort();
+        if (length < 14) {
+            throw new IOException("Binary heartbeat reply too short: " + length);
+        }
+        in.readFully(frame, 0, length);
+        ArtiferriumMetrics.get().counter("heartbeat.binary.bytes_received").add(2 + length);
+
+        if ((frame[0] & 0xFF) != VERSION) {
+            throw new IOException("Unsupported binary heartbeat version " + (frame[0] & 0xFF));
+        }
+        int messageLength = u16(frame, 11);
+        int versionOffset = 13 + messageLength;
+        if (versionOffset + 1 > length || versionOffset + 1 + (frame[versionOffset] & 0xFF) > length) {
+            throw new IOException("Binary heartbeat reply truncated");
+        }
+        int versionLength = frame[versionOffset] & 0xFF;
+        return new Reply(
+            frame[1] & 0xFF,
+            ((frame[2] & 0xFF) << 24) | ((frame[3] & 0xFF) << 16) | ((frame[4] & 0xFF) << 8) | (frame[5] & 0xFF),
+            frame[6] & 0xFF,
+            u16(frame, 7),
+            u16(frame, 9),
+            messageLength > 0 ? new String(frame, 13, messageLength, StandardCharsets.UTF_8) : null,
+            versionLength > 0 ? new String(frame, versionOffset + 1, versionLength, StandardCharsets.UTF_8) : null);
+    }
+
+    private static int u16(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private static int clampU16(int value) {
+        return Math.max(0, Math.min(0xFFFF, value));
+    }
+
+    // Identifies the session in every beat without resending the key; the hello carries the real credentials
+    static long hashSession(String sessionKey, String sessionId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest((sessionKey + ':' + sessionId).getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static final class Reply {
+        private final int status;
+        private final int sequence;
+        private final int flags;
+        private final int heartbeatInterval;
+        private final int allowlistRefreshInterval;
+        private final String message;
+        private final String allowlistVersion;
+
+        Reply(int status, int sequence, int flags, int heartbeatInterval, int allowlistRefreshInterval,
+              String message, String allowlistVersion) {
+            this.status = status;
+            this.sequence = sequence;
+            this.flags = flags;
+            this.heartbeatInterval = heartbeatInterval;
+            this.allowlistRefreshInterval = allowlistRefreshInterval;
+            this.message = message;
+            this.allowlistVersion = allowlistVersion;
+        }
+
+        boolean isOk() {
+            return status == STATUS_OK;
+        }
+
+        boolean isRosterResync() {
+            return (flags & FLAG_ROSTER_RESYNC) != 0;
+        }
+
+        /** Suggested heartbeat interval in seconds, 0 to restore the default, or -1 for no hint. */
+        int getHeartbeatInterval() {
+            return heartbeatInterval == NO_HINT ? -1 : heartbeatInterval;
+        }
+
+        /** Suggested allowlist refresh interval in seconds, 0 to restore the default, or -1 for no hint. */
+        int getAllowlistRefreshInterval() {
+            return allowlistRefreshInterval == NO_HINT ? -1 : allowlistRefreshInterval;
+        }
+
+        /** The backend's current allowlist version, or null if it did not send one. */
+        String getAllowlistVersion() {
+            return allowlistVersion;
+        }
+
+        String getMessage() {
+            return message != null ? message : "Unknown error";
+        }
+    }
+}
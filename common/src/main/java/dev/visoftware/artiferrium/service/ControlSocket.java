@@ -0,0 +1,250 @@
+package dev.visoftware.artiferrium.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import dev.visoftware.artiferrium.api.ArtiferriumStatus;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unix domain socket that lets local tooling drive Artiferrium without going through the console.
+ * Requests and responses are one JSON object per line, and a connection may send any number of
+ * requests:
+ * <pre>
+ *   {"id": 1, "op": "status"}
+ *   {"id": 2, "op": "allow", "players": ["uuid", {"uuid": "...", "expiryDate": "...", "tiers": [...]}]}
+ *   {"id": 3, "op": "revoke", "players": ["uuid"]}
+ * </pre>
+ * Supported ops are {@code status}, {@code metrics}, {@code refresh}, {@code reload_cache},
+ * {@code allow} and {@code revoke}. Every response echoes {@code id} and carries {@code ok}, plus
+ * {@code error} when it failed. Nothing here runs on the server thread.
+ * <p>
+ * Being able to connect is the only authorization, so the socket is only bound inside a directory that
+ * belongs to the server's user and is closed to everyone else ({@code 0700}), and the socket file itself
+ * is made owner-only where the file system supports it.
+ */
+public final class ControlSocket implements ManagedService {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final Gson GSON = new Gson();
+    private static final int CONNECTION_THREADS = 2;
+    private static final long ALLOWLIST_TIMEOUT_SECONDS = 30;
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
+    private final Path path;
+    private final ServerSocketChannel server;
+    private final ExecutorService connections;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private ControlSocket(Path path, ServerSocketChannel server) {
+        this.path = path;
+        this.server = server;
+        AtomicInteger threadId = new AtomicInteger();
+        this.connections = Executors.newFixedThreadPool(CONNECTION_THREADS, r -> {
+            Thread thread = new Thread(r, "Artiferrium-Control-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Binds the socket at {@code path}, replacing a stale one; returns {@code null} if that fails. */
+    public static ControlSocket start(Path path) {
+        try {
+            // Other users cannot reach a socket inside a directory that is closed to them, so the
+            // umask-dependent mode the socket is bound with never matters
+            PrivateFiles.createDirectory(path.toAbsolutePath().getParent());
+            if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                // A socket file left behind by a crash would make the bind fail; anything else is not ours to delete
+                if (!isSocket(path)) {
+                    throw new IOException(path + " exists and is not a socket");
+                }
+                Files.delete(path);
+            }
+            ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(path));
+            if (PrivateFiles.POSIX) {
+                Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+            }
+
+            ControlSocket socket = new ControlSocket(path, server);
+            Thread acceptor = new Thread(socket::acceptLoop, "Artiferrium-Control");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            ServiceRuntime.get().register(socket);
+            LOGGER.info("Control socket listening on {}", path);
+            return socket;
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.error("Failed to start control socket at {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isSocket(Path path) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("unix")) {
+            int mode = (int) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            return (mode & S_IFMT) == S_IFSOCK;
+        }
+        return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther();
+    }
+
+    @Override
+    public String getName() {
+        return "Control socket";
+    }
+
+    @Override
+    public Map<String, Object> diagnostics() {
+        return Map.of(
+            "path", path.toString(),
+            "requests", requests.get());
+    }
+
+    @Override
+    public void stop() throws IOException {
+        server.close();
+        connections.shutdownNow();
+        Files.deleteIfExists(path);
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                connections.execute(() -> serve(channel));
+            } catch (ClosedChannelException | RejectedExecutionException e) {
+                return;
+            } catch (IOException e) {
+                LOGGER.warn("Control socket accept failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try (channel;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+             OutputStream out = Channels.newOutputStream(channel)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                requests.incrementAndGet();
+                out.write((handle(line) + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Control connection closed: {}", e.getMessage());
+        }
+    }
+
+    private JsonObject handle(String line) {
+        JsonObject response = new JsonObject();
+        JsonObject request;
+        try {
+            request = GSON.fromJson(line, JsonObject.class);
+        } catch (JsonParseException e) {
+            response.addProperty("ok", false);
+            response.addProperty("error", "Malformed request: " + e.getMessage());
+            return response;
+        }
+        if (request == null) {
+            response.addProperty("ok", false);
+            response.addProperty("error", "Empty request");
+            return response;
+        }
+        if (request.has("id")) {
+            response.add("id", request.get("id"));
+        }
+
+        try {
+            String op = request.has("op") ? request.get("op").getAsString() : "";
+            switch (op) {
+                case "status" -> response.add("status", status());
+                case "metrics" -> {
+                    JsonObject metrics = new JsonObject();
+                    ArtiferriumMetrics.get().snapshot().forEach(metrics::addProperty);
+                    response.add("metrics", metrics);
+                }
+                case "refresh" -> awaitAllowlist(response, AllowlistService.refreshCachedAllowlistAsync());
+                case "reload_cache" -> awaitAllowlist(response, AllowlistService.reloadFromCacheAsync());
+                case "allow" -> awaitAllowlist(response, AllowlistService.applyLocalChangesAsync(players(request), null));
+                case "revoke" -> awaitAllowlist(response, AllowlistService.applyLocalChangesAsync(null, players(request)));
+                default -> throw new IllegalArgumentException("Unknown op '" + op + "'");
+            }
+            response.addProperty("ok", true);
+        } catch (Exception e) {
+            response.addProperty("ok", false);
+            response.addProperty("error", e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+        return response;
+    }
+
+    private static JsonArray players(JsonObject request) {
+        JsonElement players = request.get("players");
+        if (players == null || !players.isJsonArray() || players.getAsJsonArray().isEmpty()) {
+            throw new IllegalArgumentException("'players' must be a non-empty array");
+        }
+        return players.getAsJsonArray();
+    }
+
+    // The allowlist work runs on the service pool; this connection's thread just waits for the outcome
+    private static void awaitAllowlist(JsonObject response, CompletableFuture<Void> future) throws Exception {
+        try {
+            future.get(ALLOWLIST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            response.addProperty("allowlistSize", StatusTracker.get().current().getAllowlist().getSize());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (TimeoutException e) {
+            throw new TimeoutException("Still running after " + ALLOWLIST_TIMEOUT_SECONDS + "s; it will finish in the background");
+        }
+    }
+
+    private static JsonObject status() {
+        ArtiferriumStatus status = StatusTracker.get().current();
+        JsonObject json = new JsonObject();
+        json.addProperty("connection", status.getConnectionState().name().toLowerCase(Locale.ROOT));
+        if (status.getServer() != null) {
+            json.addProperty("serverId", status.getServer().getId());
+            json.addProperty("serverName", status.getServer().getName());
+            json.addProperty("private", status.getServer().isPrivate());
+        }
+        json.addProperty("players", status.getPlayerCount());
+        json.addProperty("lastHeartbeatMillis", status.getLastHeartbeatMillis());
+        json.addProperty("consecutiveHeartbeatFailures", status.getConsecutiveHeartbeatFailures());
+        json.addProperty("allowlistSize", status.getAllowlist().getSize());
+        json.addProperty("allowlistVersion", status.getAllowlist().getVersion());
+        json.addProperty("allowlistLastApiSyncMillis", status.getAllowlist().getLastApiSyncMillis());
+        json.addProperty("allowlistLastCacheLoadMillis", status.getAllowlist().getLastCacheLoadMillis());
+        return json;
+    }
+}
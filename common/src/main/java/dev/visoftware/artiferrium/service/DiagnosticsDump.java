@@ -0,0 +1,153 @@
+package dev.visoftware.artiferrium.service;
+
+import dev.visoftware.artiferrium.Artiferrium;
+import dev.visoftware.artiferrium.config.Config;
+import dev.visoftware.artiferrium.http.ApiClient;
+import dev.visoftware.artiferrium.http.CircuitBreaker;
+import dev.visoftware.artiferrium.http.Endpoint;
+import dev.visoftware.artiferrium.login.AdmissionController;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import dev.visoftware.artiferrium.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes everything needed to triage a performance problem into one text file: thread states and
+ * stacks, queue depths, HTTP and circuit state, per-service state, metrics and the redacted config.
+ * <p>
+ * The dump runs on its own thread rather than the server thread or the service pool, since a stuck
+ * pool is one of the things it is meant to show.
+ */
+public final class DiagnosticsDump {
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private DiagnosticsDump() {}
+
+    public static CompletableFuture<Path> writeAsync(Path directory) {
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(write(directory));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        }, "Artiferrium-Diagnostics");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    private static Path write(Path directory) throws IOException {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+
+        out.println("Artiferrium diagnostics, " + Instant.now());
+        out.println("Java " + System.getProperty("java.version") + " on " + System.getProperty("os.name"));
+        out.println("Uptime: " + ManagementFactory.getRuntimeMXBean().getUptime() / 1000 + "s");
+
+        section(out, "Status");
+        out.println(StatusTracker.get().current());
+        out.printf("Average tick time: %.2f ms%n", Artiferrium.getAverageTickMillis());
+        out.println("Players online: " + Artiferrium.getCurrentPlayerCount());
+
+        section(out, "Queues");
+        out.println("Service pool: " + ServiceRuntime.get().getActiveTaskCount() + " active, "
+            + ServiceRuntime.get().getQueuedTaskCount() + " queued");
+        out.println("I/O pool: " + ServiceRuntime.get().getIoActiveTaskCount() + " active, "
+            + ServiceRuntime.get().getIoQueuedTaskCount() + " queued");
+        out.println("Server-thread tasks queued: " + MainThreadExecutor.get().getQueueDepth());
+        out.println("Logins waiting for admission: " + AdmissionController.get().getQueueLength());
+
+        section(out, "HTTP");
+        out.println("In-flight requests: " + ApiClient.get().getInFlightRequests() + "/"
+            + ApiClient.get().getMaxConcurrentRequests());
+        for (Endpoint endpoint : ApiClient.get().getEndpoints()) {
+            CircuitBreaker breaker = endpoint.getCircuitBreaker();
+            out.printf("%s: circuit %s (%d consecutive failures, probe in %ds), latency %.0f ms%n",
+                endpoint.getBaseUrl(), breaker.getState(), breaker.getConsecutiveFailures(),
+                breaker.getSecondsUntilProbe(), endpoint.getLatencyNanos() / 1_000_000.0);
+        }
+
+        for (ManagedService service : ServiceRuntime.get().getServices()) {
+            section(out, service.getName());
+            try {
+                service.diagnostics().forEach((key, value) -> out.println(key + ": " + value));
+            } catch (RuntimeException e) {
+                out.println("Failed to collect: " + e);
+            }
+        }
+
+        section(out, "Latency histograms (micros)");
+        for (Map.Entry<String, LatencyHistogram> entry : ArtiferriumMetrics.get().histograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.printf("%s: count=%d p50=%d p95=%d p99=%d max=%d%n", entry.getKey(), histogram.getCount(),
+                histogram.percentileMicros(50), histogram.percentileMicros(95),
+                histogram.percentileMicros(99), histogram.getMaxMicros());
+        }
+
+        section(out, "Metrics");
+        ArtiferriumMetrics.get().snapshot().forEach((name, value) -> out.println(name + ": " + value));
+
+        section(out, "Config");
+        Config.get().getRedactedSections().forEach((name, values) -> {
+            out.println("[" + name + "]");
+            values.forEach((key, value) -> out.println(key + " = \"" + value + "\""));
+        });
+
+        section(out, "Threads");
+        for (ThreadInfo info : ManagementFactory.getThreadMXBean().dumpAllThreads(true, true)) {
+            if (isRelevant(info.getThreadName()) && info.getThreadId() != Thread.currentThread().getId()) {
+                printThread(out, info);
+            }
+        }
+
+        out.flush();
+        Files.createDirectories(directory);
+        Path file = directory.resolve("diagnostics-" + LocalDateTime.now().format(FILE_TIME) + ".txt");
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, buffer.toString());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    // Artiferrium's own threads, the server thread it hands work to and the JDK HTTP client's selector
+    private static boolean isRelevant(String threadName) {
+        return threadName.startsWith("Artiferrium") || threadName.equals("Server thread")
+            || threadName.startsWith("HttpClient");
+    }
+
+    private static void printThread(PrintWriter out, ThreadInfo info) {
+        out.printf("%n\"%s\" #%d %s", info.getThreadName(), info.getThreadId(), info.getThreadState());
+        if (info.getLockName() != null) {
+            out.print(" on " + info.getLockName());
+            if (info.getLockOwnerName() != null) {
+                out.print(" owned by \"" + info.getLockOwnerName() + "\"");
+            }
+        }
+        out.println();
+        for (StackTraceElement frame : info.getStackTrace()) {
+            out.println("    at " + frame);
+        }
+        for (LockInfo lock : info.getLockedSynchronizers()) {
+            out.println("    holds " + lock);
+        }
+    }
+
+    private static void section(PrintWriter out, String title) {
+        out.println();
+        out.println("== " + title + " ==");
+    }
+}
@@ -0,0 +1,153 @@
+package dev.visoftware.artiferrium.service;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.visoftware.artiferrium.api.ArtiferriumStatus;
+import dev.visoftware.artiferrium.api.ConnectionState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Loopback-only {@code /live} and {@code /ready} probes for orchestrators. Answers are derived from
+ * the {@link StatusTracker} snapshot, and the encoded body is cached per snapshot, so a probe never
+ * waits on the backend or on the server thread.
+ * <p>
+ * {@code /live} fails only once Artiferrium hit a fatal error and is about to stop the server.
+ * {@code /ready} requires authentication, a successful first heartbeat and, on private servers, a
+ * loaded allowlist. A server that lost the backend afterwards stays ready but reports
+ * {@code degraded}, since it keeps serving players from its cached allowlist.
+ */
+public final class HealthEndpoint implements ManagedService {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+
+    private static volatile String fatalError;
+
+    private final HttpServer server;
+    private volatile CachedResponse cachedReady = new CachedResponse(null, 503, new byte[0]);
+
+    private static final class CachedResponse {
+        final ArtiferriumStatus status;
+        final int statusCode;
+        final byte[] body;
+
+        CachedResponse(ArtiferriumStatus status, int statusCode, byte[] body) {
+            this.status = status;
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+    }
+
+    private HealthEndpoint(HttpServer server) {
+        this.server = server;
+    }
+
+    /** Binds the endpoint to the loopback interface; returns {@code null} if the port is unavailable. */
+    public static HealthEndpoint start(int port) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 8);
+            HealthEndpoint endpoint = new HealthEndpoint(server);
+            server.createContext("/live", endpoint::handleLive);
+            server.createContext("/ready", endpoint::handleReady);
+            server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "Artiferrium-Health");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            server.start();
+            ServiceRuntime.get().register(endpoint);
+            LOGGER.info("Health endpoint listening on http://127.0.0.1:{}/ready", port);
+            return endpoint;
+        } catch (IOException e) {
+            LOGGER.error("Failed to start health endpoint on port {}: {}", port, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, Object> diagnostics() {
+        return Map.of(
+            "address", server.getAddress().toString(),
+            "live", fatalError == null ? "ok" : "failing: " + fatalError);
+    }
+
+    /** Makes {@code /live} fail; called right before Artiferrium stops the server. */
+    public static void markFatal(String message) {
+        fatalError = message;
+    }
+
+    @Override
+    public String getName() {
+        return "Health endpoint";
+    }
+
+    @Override
+    public void stop() {
+        server.stop(0);
+        ((java.util.concurrent.ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    private void handleLive(HttpExchange exchange) throws IOException {
+        String error = fatalError;
+        if (error == null) {
+            respond(exchange, 200, "{\"live\":true}".getBytes(StandardCharsets.UTF_8));
+        } else {
+            JsonObject json = new JsonObject();
+            json.addProperty("live", false);
+            json.addProperty("error", error);
+            respond(exchange, 503, json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void handleReady(HttpExchange exchange) throws IOException {
+        ArtiferriumStatus status = StatusTracker.get().current();
+        CachedResponse cached = cachedReady;
+        if (cached.status != status) {
+            cached = encodeReady(status);
+            cachedReady = cached;
+        }
+        respond(exchange, cached.statusCode, cached.body);
+    }
+
+    private static CachedResponse encodeReady(ArtiferriumStatus status) {
+        boolean authenticated = status.getServer() != null;
+        boolean heartbeatOk = status.getLastHeartbeatMillis() > 0;
+        boolean allowlistRequired = authenticated && status.getServer().isPrivate();
+        boolean allowlistLoaded = status.getAllowlist().getLastApiSyncMillis() > 0
+            || status.getAllowlist().getLastCacheLoadMillis() > 0;
+        boolean degraded = status.getConnectionState() == ConnectionState.DISCONNECTED;
+        boolean ready = authenticated && heartbeatOk && (!allowlistRequired || allowlistLoaded);
+
+        JsonObject json = new JsonObject();
+        json.addProperty("ready", ready);
+        json.addProperty("authenticated", authenticated);
+        json.addProperty("heartbeat", heartbeatOk);
+        json.addProperty("allowlistLoaded", allowlistLoaded);
+        json.addProperty("degraded", degraded);
+        json.addProperty("consecutiveHeartbeatFailures", status.getConsecutiveHeartbeatFailures());
+        return new CachedResponse(status, ready ? 200 : 503, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int statusCode, byte[] body) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(statusCode, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(statusCode, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -2,32 +2,46 @@ package dev.visoftware.artiferrium.service;
 
 import dev.architectury.platform.Platform;
 import dev.visoftware.artiferrium.Artiferrium;
+import dev.visoftware.artiferrium.config.Config;
 import dev.visoftware.artiferrium.constants.ApiConstants;
+import dev.visoftware.artiferrium.http.ApiClient;
+import dev.visoftware.artiferrium.http.ApiRequest;
+import dev.visoftware.artiferrium.http.ApiResponse;
+import dev.visoftware.artiferrium.jfr.HeartbeatEvent;
+import dev.visoftware.artiferrium.logging.Banner;
+import dev.visoftware.artiferrium.logging.ThrottledLog;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
-public class HeartbeatService {
+public class HeartbeatService implements ManagedService {
     private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final ThrottledLog THROTTLED = new ThrottledLog(LOGGER);
     private static PlayerCountProvider playerCountProvider = () -> 0; // Default provider returns 0
-    private final HttpClient client;
     private final String sessionKey;
     private final String sessionId;
-    private final Gson gson;
-    private final ScheduledExecutorService scheduler;
+    private volatile ScheduledFuture<?> nextHeartbeat;
     private final AtomicBoolean hasWarnedConnectionFailure;
+    private static final int DEFAULT_INTERVAL = 30; // seconds
     private static final int MAX_RETRY_INTERVAL = 300; // Maximum retry interval in seconds (5 minutes)
-    private int currentRetryInterval = 30; // Start with normal interval
+    private static final long BINARY_RETRY_MILLIS = 5 * 60 * 1000;
+    private final AdaptiveInterval interval = new AdaptiveInterval(DEFAULT_INTERVAL, 10, 90);
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private volatile int currentRetryInterval = DEFAULT_INTERVAL; // Start with normal interval
+    private volatile int lastReportedPlayerCount;
+    private final BinaryHeartbeatChannel binaryChannel;
+    private volatile long binaryRetryAt;
 
     public static void setPlayerCountProvider(PlayerCountProvider provider) {
         playerCountProvider = provider;
@@ -36,82 +50,115 @@ public class HeartbeatService {
     public HeartbeatService(String sessionKey, String sessionId) {
         this.sessionKey = sessionKey;
         this.sessionId = sessionId;
-        this.client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
-        this.gson = new Gson();
-        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread thread = new Thread(r, "Artiferrium-Heartbeat");
-            thread.setDaemon(true);
-            return thread;
-        });
         this.hasWarnedConnectionFailure = new AtomicBoolean(false);
+        this.binaryChannel = createBinaryChannel(sessionKey, sessionId);
+        ServiceRuntime.get().register(this);
+    }
+
+    private static BinaryHeartbeatChannel createBinaryChannel(String sessionKey, String sessionId) {
+        String address = Config.get().getHeartbeatSocket();
+        if (address.isEmpty()) return null;
+        try {
+            return new BinaryHeartbeatChannel(address, sessionKey, sessionId);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Ignoring heartbeat_socket: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Heartbeat";
+    }
+
+    @Override
+    public void stop() {
+        stopHeartbeatScheduler();
+    }
+
+    @Override
+    public Map<String, Object> diagnostics() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        ScheduledFuture<?> pending = nextHeartbeat;
+        state.put("next_heartbeat_seconds", pending != null ? pending.getDelay(TimeUnit.SECONDS) : "none");
+        state.put("failing", hasWarnedConnectionFailure.get());
+        state.put("retry_interval_seconds", currentRetryInterval);
+        state.put("last_reported_players", lastReportedPlayerCount);
+        state.put("binary_socket", binaryChannel == null ? "disabled"
+            : binaryRetryAt == 0 ? "active" : "falling back to HTTP until " + Instant.ofEpochMilli(binaryRetryAt));
+        return state;
     }
 
     public void startHeartbeatScheduler(int initialPlayerCount) {
+        // Both the boot sequence and SERVER_STARTING call this; only the first call starts the loop
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
         // First do an initial test heartbeat
         try {
             LOGGER.info("Testing connection with heartbeat...");
             testHeartbeat();
             LOGGER.info("Successfully connected to VI Software!");
         } catch (Exception e) {
+            started.set(false);
             throw new RuntimeException("Initial heartbeat test failed: " + e.getMessage() +
                 "\nPlease check your network connection and server status.");
         }
 
         // If test was successful, start the scheduler
-        scheduler.scheduleAtFixedRate(() -> {
-            try {
-                // Get current player count from the platform-specific provider
-                int currentPlayers = playerCountProvider.getCurrentPlayerCount();
-                sendHeartbeat(currentPlayers);
-
-                // If we successfully sent a heartbeat after a failure, log the recovery
-                if (hasWarnedConnectionFailure.compareAndSet(true, false)) {
-                    LOGGER.info("╔════════════════════════════════════════════════════════════════╗");
-                    LOGGER.info("║                     ARTIFERRIUM NOTICE                         ║");
-                    LOGGER.info("║--------------------------------------------------------      ║");
-                    LOGGER.info("║ Connection to VI Software services has been restored!         ║");
-                    LOGGER.info("║                                                              ║");
-                    LOGGER.info("║ Heartbeat service resumed normal operation.                  ║");
-                    LOGGER.info("╚════════════════════════════════════════════════════════════════╝");
-                }
-
-                // Reset retry interval on successful heartbeat
-                currentRetryInterval = 30;
-            } catch (Exception e) {
-                // Only show the warning once when we first detect the failure
-                if (hasWarnedConnectionFailure.compareAndSet(false, true)) {
-                    LOGGER.warn("╔════════════════════════════════════════════════════════════════╗");
-                    LOGGER.warn("║                     ARTIFERRIUM WARNING                        ║");
-                    LOGGER.warn("║--------------------------------------------------------      ║");
-                    LOGGER.warn("║ Connection to VI Software services has been lost!             ║");
-                    LOGGER.warn("║                                                              ║");
-                    LOGGER.warn("║ The server will continue to run, but some features may be    ║");
-                    LOGGER.warn("║ unavailable until connection is restored.                    ║");
-                    LOGGER.warn("║                                                              ║");
-                    LOGGER.warn("║ Attempting to reconnect...                                   ║");
-                    LOGGER.warn("╚════════════════════════════════════════════════════════════════╝");
-                }
-
-                LOGGER.debug("Heartbeat failed: {}", e.getMessage());
-
-                // Implement exponential backoff for retries
-                if (currentRetryInterval < MAX_RETRY_INTERVAL) {
-                    currentRetryInterval = Math.min(currentRetryInterval * 2, MAX_RETRY_INTERVAL);
-                }
-
-                // Schedule retry with new interval
-                scheduler.schedule(() -> {
-                    try {
-                        // Get current player count for retry attempt
-                        sendHeartbeat(Artiferrium.getCurrentPlayerCount());
-                    } catch (Exception retryException) {
-                        LOGGER.debug("Retry attempt failed: {}", retryException.getMessage());
-                    }
-                }, currentRetryInterval, TimeUnit.SECONDS);
+        scheduleNext(interval.nextDelaySeconds());
+    }
+
+    private void scheduleNext(long delaySeconds) {
+        if (stopped.get()) return;
+        LOGGER.debug("Next heartbeat in {}s", delaySeconds);
+        nextHeartbeat = ServiceRuntime.get().scheduleBlocking(this::runScheduledHeartbeat, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    private void runScheduledHeartbeat() {
+        long nextDelay;
+        try {
+            // Get current player count from the platform-specific provider
+            int currentPlayers = playerCountProvider.getCurrentPlayerCount();
+            if (currentPlayers != lastReportedPlayerCount) {
+                interval.markChanged();
             }
-        }, 0, 30, TimeUnit.SECONDS);
+            sendHeartbeat(currentPlayers);
+
+            // If we successfully sent a heartbeat after a failure, log the recovery
+            if (hasWarnedConnectionFailure.compareAndSet(true, false)) {
+                Banner.info(LOGGER, "ARTIFERRIUM NOTICE",
+                    "Connection to VI Software services has been restored!",
+                    "",
+                    "Heartbeat service resumed normal operation.");
+            }
+
+            // Reset retry interval on successful heartbeat
+            currentRetryInterval = DEFAULT_INTERVAL;
+            nextDelay = interval.nextDelaySeconds();
+        } catch (Exception e) {
+            // Only show the warning once when we first detect the failure
+            if (hasWarnedConnectionFailure.compareAndSet(false, true)) {
+                Banner.warn(LOGGER, "ARTIFERRIUM WARNING",
+                    "Connection to VI Software services has been lost!",
+                    "",
+                    "The server will continue to run, but some features may be",
+                    "unavailable until connection is restored.",
+                    "",
+                    "Attempting to reconnect...");
+            }
+
+            LOGGER.debug("Heartbeat failed: {}", e.getMessage());
+
+            // Implement exponential backoff for retries
+            if (currentRetryInterval < MAX_RETRY_INTERVAL) {
+                currentRetryInterval = Math.min(currentRetryInterval * 2, MAX_RETRY_INTERVAL);
+            }
+            nextDelay = currentRetryInterval;
+        }
+
+        scheduleNext(nextDelay);
     }
 
     private void testHeartbeat() {
@@ -119,53 +166,168 @@ public class HeartbeatService {
     }
 
     public void stopHeartbeatScheduler() {
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
+        if (!stopped.compareAndSet(false, true)) return;
+
+        ScheduledFuture<?> pending = nextHeartbeat;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+
+        if (started.get()) {
+            sendOfflineHeartbeat();
+        }
+    }
+
+    // Lets the platform delist the server right away instead of waiting for heartbeats to stop arriving
+    private void sendOfflineHeartbeat() {
+        if (binaryAvailable()) {
+            try {
+                binaryChannel.offline();
+                binaryChannel.close();
+                return;
+            } catch (IOException e) {
+                LOGGER.debug("Binary offline heartbeat failed, using HTTP: {}", e.getMessage());
             }
+        }
+        try {
+            ApiRequest request = ApiRequest.post(ApiConstants.SERVER_HEARTBEAT_ENDPOINT)
+                    .header("sessionkey", sessionKey)
+                    .header("sessionid", sessionId)
+                    .header("playercount", "0")
+                    .header("serverstatus", "offline")
+                    .timeout(Duration.ofSeconds(2));
+
+            ApiResponse response = ApiClient.get().send(request);
+            LOGGER.debug("Offline heartbeat response: {} - {}", response.statusCode(), response);
         } catch (InterruptedException e) {
-            scheduler.shutdownNow();
             Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.debug("Failed to send offline heartbeat: {}", e.getMessage());
         }
     }
 
     private void sendHeartbeat(int playerCount) {
+        HeartbeatEvent event = new HeartbeatEvent();
+        event.begin();
+        event.players = playerCount;
+        long start = System.nanoTime();
         try {
             LOGGER.debug("Sending heartbeat (players: {})", playerCount);
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(ApiConstants.SERVER_HEARTBEAT_ENDPOINT))
-                    .header("Content-Type", "application/json")
-                    .header("sessionkey", sessionKey)
-                    .header("sessionid", sessionId)
-                    .header("playercount", String.valueOf(playerCount))
-                    .POST(HttpRequest.BodyPublishers.noBody())
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            LOGGER.debug("Heartbeat response: {} - {}", response.statusCode(), response.body());
-
-            if (response.statusCode() != 200) {
-                String error = "Heartbeat failed with status " + response.statusCode();
-                LOGGER.error(error + ": " + response.body());
-                throw new RuntimeException(error);
+            RosterTracker.Payload roster = Config.get().isRosterSync() ? RosterTracker.get().nextPayload() : null;
+            event.rosterSent = roster != null;
+            event.transport = "binary";
+            Boolean rosterResync = binaryAvailable() ? sendBinaryHeartbeat(playerCount, roster) : null;
+            if (rosterResync == null) {
+                event.transport = "http";
+                rosterResync = sendHttpHeartbeat(playerCount, roster);
             }
 
-            JsonObject jsonResponse = gson.fromJson(response.body(), JsonObject.class);
-            if (!"OK".equals(jsonResponse.get("status").getAsString())) {
-                String error = jsonResponse.has("message") ?
-                    jsonResponse.get("message").getAsString() :
-                    "Unknown error";
-                LOGGER.error("Heartbeat failed: {}", error);
-                throw new RuntimeException("Heartbeat failed: " + error);
+            if (Config.get().isRosterSync()) {
+                RosterTracker.get().acknowledge(roster, rosterResync);
             }
 
+            StatsHistory.get().recordHeartbeat(System.nanoTime() - start);
+            long now = System.currentTimeMillis();
+            lastReportedPlayerCount = playerCount;
+            Artiferrium.updateServerData(playerCount, now);
+            StatusTracker.get().heartbeatSucceeded(playerCount, now);
             LOGGER.debug("Heartbeat successful");
+
+            // Analytics ride on the heartbeat schedule; their failures never fail the heartbeat
+            SessionAnalytics.get().flush(sessionKey, sessionId);
+            event.success = true;
+            THROTTLED.resolve("heartbeat");
         } catch (Exception e) {
+            StatusTracker.get().heartbeatFailed();
             String error = "Failed to send heartbeat: " + e.getMessage();
-            LOGGER.error(error, e);
+            // Every retry during an outage ends up here; log the first failure in full and summarize the rest
+            THROTTLED.error("heartbeat", "Failed to send heartbeat", e);
+            throw new RuntimeException(error);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private boolean binaryAvailable() {
+        return binaryChannel != null && System.currentTimeMillis() >= binaryRetryAt;
+    }
+
+    // Returns whether the backend asked for a roster resync, or null if the heartbeat should go over HTTP instead
+    private Boolean sendBinaryHeartbeat(int playerCount, RosterTracker.Payload roster) {
+        BinaryHeartbeatChannel.Reply reply;
+        try {
+            byte[] extension = roster != null ? roster.getJson().toString().getBytes(StandardCharsets.UTF_8) : null;
+            reply = binaryChannel.heartbeat(playerCount, extension);
+        } catch (IOException e) {
+            // Transport trouble only; the HTTP path takes over until the socket is worth retrying
+            if (binaryRetryAt == 0) {
+                LOGGER.warn("Binary heartbeat unavailable ({}), falling back to HTTP", e.getMessage());
+            }
+            binaryRetryAt = System.currentTimeMillis() + BINARY_RETRY_MILLIS;
+            ArtiferriumMetrics.get().counter("heartbeat.binary.fallbacks").increment();
+            return null;
+        }
+
+        if (binaryRetryAt != 0) {
+            LOGGER.info("Binary heartbeat connection restored");
+            binaryRetryAt = 0;
+        }
+        if (!reply.isOk()) {
+            throw new RuntimeException("Heartbeat failed: " + reply.getMessage());
+        }
+        ArtiferriumMetrics.get().counter("heartbeat.binary.sent").increment();
+        applyIntervalHints(reply.getHeartbeatInterval(), reply.getAllowlistRefreshInterval());
+        AllowlistService.onAdvertisedVersion(reply.getAllowlistVersion());
+        return reply.isRosterResync();
+    }
+
+    private boolean sendHttpHeartbeat(int playerCount, RosterTracker.Payload roster) throws Exception {
+        ApiRequest request = ApiRequest.post(ApiConstants.SERVER_HEARTBEAT_ENDPOINT)
+                .header("sessionkey", sessionKey)
+                .header("sessionid", sessionId)
+                .header("playercount", String.valueOf(playerCount));
+
+        if (roster != null) {
+            JsonObject body = new JsonObject();
+            body.add("roster", roster.getJson());
+            request.jsonBody(body);
+        }
+
+        ApiResponse response = ApiClient.get().send(request);
+        LOGGER.debug("Heartbeat response: {} - {}", response.statusCode(), response);
+
+        if (response.statusCode() != 200) {
+            String error = "Heartbeat failed with status " + response.statusCode();
+            LOGGER.debug("{}: {}", error, response.body());
             throw new RuntimeException(error);
         }
+
+        JsonObject jsonResponse = response.json();
+        if (!"OK".equals(jsonResponse.get("status").getAsString())) {
+            String error = jsonResponse.has("message") ?
+                jsonResponse.get("message").getAsString() :
+                "Unknown error";
+            throw new RuntimeException("Heartbeat failed: " + error);
+        }
+
+        applyIntervalHints(
+            jsonResponse.has("heartbeatInterval") ? jsonResponse.get("heartbeatInterval").getAsLong() : -1,
+            jsonResponse.has("allowlistRefreshInterval") ? jsonResponse.get("allowlistRefreshInterval").getAsLong() : -1);
+        if (jsonResponse.has("allowlistVersion")) {
+            AllowlistService.onAdvertisedVersion(jsonResponse.get("allowlistVersion").getAsString());
+        }
+        return jsonResponse.has("rosterResync") && jsonResponse.get("rosterResync").getAsBoolean();
+    }
+
+    // The backend may suggest how often it wants to hear from us and how often to poll the allowlist
+    // Negative means no hint was sent; zero restores the default interval
+    private void applyIntervalHints(long heartbeatSeconds, long allowlistRefreshSeconds) {
+        if (heartbeatSeconds >= 0) {
+            interval.applyHint(heartbeatSeconds);
+        }
+        if (allowlistRefreshSeconds >= 0) {
+            AllowlistService.applyRefreshHint(allowlistRefreshSeconds);
+        }
     }
 }
@@ -0,0 +1,78 @@
+package dev.visoftware.artiferrium.service;
+
+import dev.visoftware.artiferrium.config.Config;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single funnel for all work Artiferrium needs to do on the server thread. Tasks may be submitted
+ * from any thread and are drained at the end of each server tick until the configured per-tick
+ * budget is used up; whatever is left carries over to the next tick. At least one task runs per
+ * tick so the queue always makes progress.
+ */
+public final class MainThreadExecutor implements Executor {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final MainThreadExecutor INSTANCE = new MainThreadExecutor();
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LongAdder tasksRun;
+    private final LongAdder nanosSpent;
+    private final LongAdder carriedOverTicks;
+
+    private MainThreadExecutor() {
+        ArtiferriumMetrics metrics = ArtiferriumMetrics.get();
+        this.tasksRun = metrics.counter("main_thread.tasks_run");
+        this.nanosSpent = metrics.counter("main_thread.nanos_spent");
+        this.carriedOverTicks = metrics.counter("main_thread.ticks_carried_over");
+    }
+
+    public static MainThreadExecutor get() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        queueDepth.incrementAndGet();
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /** Runs queued tasks within this tick's budget. Must be called on the server thread. */
+    public void drain() {
+        if (queueDepth.get() == 0) return;
+
+        long start = System.nanoTime();
+        long deadline = start + Config.get().getMainThreadBudgetNanos();
+        long now = start;
+        Runnable task;
+        do {
+            task = tasks.poll();
+            if (task == null) break;
+            queueDepth.decrementAndGet();
+
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOGGER.error("Artiferrium server-thread task failed", t);
+            }
+            tasksRun.increment();
+            now = System.nanoTime();
+        } while (now - deadline < 0);
+
+        nanosSpent.add(now - start);
+        if (queueDepth.get() > 0) {
+            carriedOverTicks.increment();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package dev.visoftware.artiferrium.service;
+
+import java.util.Map;
+
+/**
+ * A background service whose lifecycle is owned by the {@link ServiceRuntime}.
+ */
+public interface ManagedService {
+    String getName();
+
+    /**
+     * Stops the service. Called in parallel with the other services during shutdown; anything
+     * still running when the runtime's deadline passes is abandoned.
+     */
+    void stop() throws Exception;
+
+    /**
+     * Internal state worth seeing when triaging a problem, included in {@code /artiferrium diagnostics dump}.
+     * Called from the dump thread, so implementations must only read state that is safe to read concurrently.
+     */
+    default Map<String, Object> diagnostics() {
+        return Map.of();
+    }
+}
@@ -0,0 +1,328 @@
+package dev.visoftware.artiferrium.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of IPv4 and IPv6 CIDR rules synced with the allowlist. Each family is a
+ * path-compressed binary radix trie, so the longest matching prefix is found in at most one pass
+ * over the address bits no matter how many rules there are.
+ * <p>
+ * A more specific rule wins over a broader one. Addresses that match no rule are denied as soon as
+ * any allow rule exists, and permitted if there are only deny rules.
+ */
+public final class NetworkRules {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    public static final NetworkRules EMPTY = new NetworkRules(List.of(), null, null, false);
+
+    private static final byte NONE = -1;
+    private static final byte DENY = 0;
+    private static final byte ALLOW = 1;
+
+    private final List<Rule> rules;
+    private final Node ipv4;
+    private final Node ipv6;
+    private final boolean hasAllowRules;
+
+    private static final class Rule {
+        final String cidr;
+        final boolean allow;
+
+        Rule(String cidr, boolean allow) {
+            this.cidr = cidr;
+            this.allow = allow;
+        }
+    }
+
+    // A node covers every address starting with the first `bits` bits of `prefix`; children split on the next bit
+    private static final class Node {
+        final byte[] prefix;
+        final int bits;
+        byte action;
+        Node zero;
+        Node one;
+
+        Node(byte[] prefix, int bits, byte action) {
+            this.prefix = prefix;
+            this.bits = bits;
+            this.action = action;
+        }
+    }
+
+    private NetworkRules(List<Rule> rules, Node ipv4, Node ipv6, boolean hasAllowRules) {
+        this.rules = rules;
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+        this.hasAllowRules = hasAllowRules;
+    }
+
+    /**
+     * Parses rules from the allowlist response or cache. Entries are either a CIDR string (an allow
+     * rule) or {@code {"cidr": "...", "action": "allow"|"deny"}}; malformed entries are skipped.
+     * Addresses must be IP literals, which are parsed here and never resolved.
+     */
+    public static NetworkRules parse(JsonArray json) {
+        if (json == null || json.isEmpty()) return EMPTY;
+
+        List<Rule> rules = new ArrayList<>(json.size());
+        Node[] roots = new Node[2];
+        boolean hasAllowRules = false;
+        for (JsonElement element : json) {
+            String cidr;
+            boolean allow;
+            byte[] prefix;
+            int bits;
+            try {
+                if (isString(element)) {
+                    cidr = element.getAsString();
+                    allow = true;
+                } else if (element.isJsonObject()) {
+                    JsonObject entry = element.getAsJsonObject();
+                    if (!isString(entry.get("cidr"))) {
+                        throw new IllegalArgumentException("missing \"cidr\"");
+                    }
+                    cidr = entry.get("cidr").getAsString();
+                    allow = parseAction(entry.get("action"));
+                } else {
+                    throw new IllegalArgumentException("expected a CIDR string or object");
+                }
+
+                int slash = cidr.indexOf('/');
+                prefix = parseAddress((slash < 0 ? cidr : cidr.substring(0, slash)).trim());
+                bits = slash < 0 ? prefix.length * 8 : Integer.parseInt(cidr.substring(slash + 1).trim());
+                if (bits < 0 || bits > prefix.length * 8) {
+                    throw new IllegalArgumentException("prefix length out of range");
+                }
+                if (prefix.length == 16 && bits >= 96 && isIpv4Mapped(prefix)) {
+                    // Connections from IPv4-mapped addresses are reported as plain IPv4
+                    prefix = Arrays.copyOfRange(prefix, 12, 16);
+                    bits -= 96;
+                }
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Skipping malformed network rule {}: {}", element, e.getMessage());
+                continue;
+            }
+
+            mask(prefix, bits);
+            int family = prefix.length == 4 ? 0 : 1;
+            roots[family] = insert(roots[family], prefix, bits, allow ? ALLOW : DENY);
+            rules.add(new Rule(cidr, allow));
+            hasAllowRules |= allow;
+        }
+        return rules.isEmpty() ? EMPTY : new NetworkRules(List.copyOf(rules), roots[0], roots[1], hasAllowRules);
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    public boolean permits(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        byte action = lookup(bytes.length == 4 ? ipv4 : ipv6, bytes);
+        return action == NONE ? !hasAllowRules : action == ALLOW;
+    }
+
+    public JsonArray toJson() {
+        JsonArray json = new JsonArray();
+        for (Rule rule : rules) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("cidr", rule.cidr);
+            entry.addProperty("action", rule.allow ? "allow" : "deny");
+            json.add(entry);
+        }
+        return json;
+    }
+
+    private static boolean isString(JsonElement element) {
+        return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isString();
+    }
+
+    private static boolean parseAction(JsonElement action) {
+        if (action == null || action.isJsonNull()) return true;
+        if (isString(action)) {
+            if ("allow".equalsIgnoreCase(action.getAsString())) return true;
+            if ("deny".equalsIgnoreCase(action.getAsString())) return false;
+        }
+        throw new IllegalArgumentException("action must be \"allow\" or \"deny\"");
+    }
+
+    /** Parses a dotted IPv4 or RFC 4291 IPv6 literal without ever consulting a resolver. */
+    static byte[] parseAddress(String text) {
+        if (text.indexOf(':') < 0) {
+            byte[] address = new byte[4];
+            if (!parseIpv4(text, address, 0)) {
+                throw new IllegalArgumentException("not an IP address");
+            }
+            return address;
+        }
+
+        byte[] address = new byte[16];
+        int doubleColon = text.indexOf("::");
+        if (doubleColon >= 0 && text.indexOf("::", doubleColon + 1) >= 0) {
+            throw new IllegalArgumentException("more than one '::'");
+        }
+        String head = doubleColon < 0 ? text : text.substring(0, doubleColon);
+        String tail = doubleColon < 0 ? "" : text.substring(doubleColon + 2);
+
+        byte[] tailBytes = new byte[16];
+        int tailLength = parseIpv6Groups(tail, tailBytes, true);
+        int headLength = parseIpv6Groups(head, address, tailLength == 0 && doubleColon < 0);
+        if (doubleColon < 0 ? headLength != 16 : headLength + tailLength > 14) {
+            throw new IllegalArgumentException("wrong number of IPv6 groups");
+        }
+        System.arraycopy(tailBytes, 0, address, 16 - tailLength, tailLength);
+        return address;
+    }
+
+    // Writes the groups of one side of a '::' to the start of `out` and returns the number of bytes written
+    private static int parseIpv6Groups(String text, byte[] out, boolean allowIpv4Tail) {
+        if (text.isEmpty()) return 0;
+        String[] groups = text.split(":", -1);
+        int length = 0;
+        for (int i = 0; i < groups.length; i++) {
+            String group = groups[i];
+            if (allowIpv4Tail && i == groups.length - 1 && group.indexOf('.') >= 0) {
+                if (length + 4 > 16 || !parseIpv4(group, out, length)) {
+                    throw new IllegalArgumentException("bad embedded IPv4 address");
+                }
+                return length + 4;
+            }
+            if (group.isEmpty() || group.length() > 4 || length + 2 > 16) {
+                throw new IllegalArgumentException("bad IPv6 group '" + group + "'");
+            }
+            int value = 0;
+            for (int c = 0; c < group.length(); c++) {
+                int digit = Character.digit(group.charAt(c), 16);
+                if (digit < 0) throw new IllegalArgumentException("bad IPv6 group '" + group + "'");
+                value = (value << 4) | digit;
+            }
+            out[length++] = (byte) (value >>> 8);
+            out[length++] = (byte) value;
+        }
+        return length;
+    }
+
+    private static boolean parseIpv4(String text, byte[] out, int offset) {
+        String[] octets = text.split("\\.", -1);
+        if (octets.length != 4) return false;
+        for (int i = 0; i < 4; i++) {
+            String octet = octets[i];
+            if (octet.isEmpty() || octet.length() > 3) return false;
+            int value = 0;
+            for (int c = 0; c < octet.length(); c++) {
+                char ch = octet.charAt(c);
+                if (ch < '0' || ch > '9') return false;
+                value = value * 10 + (ch - '0');
+            }
+            if (value > 255) return false;
+            out[offset + i] = (byte) value;
+        }
+        return true;
+    }
+
+    private static boolean isIpv4Mapped(byte[] address) {
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) return false;
+        }
+        return address[10] == (byte) 0xFF && address[11] == (byte) 0xFF;
+    }
+
+    private static byte lookup(Node node, byte[] address) {
+        byte best = NONE;
+        int checked = 0;
+        while (node != null) {
+            // Bits before `checked` already matched on the way down; only compare the compressed part
+            for (int i = checked; i < node.bits; i++) {
+                if (bit(node.prefix, i) != bit(address, i)) {
+                    return best;
+                }
+            }
+            if (node.action != NONE) {
+                best = node.action;
+            }
+            if (node.bits == address.length * 8) {
+                return best;
+            }
+            checked = node.bits;
+            node = bit(address, node.bits) == 0 ? node.zero : node.one;
+        }
+        return best;
+    }
+
+    private static Node insert(Node root, byte[] prefix, int bits, byte action) {
+        if (root == null) {
+            return new Node(prefix, bits, action);
+        }
+
+        Node parent = null;
+        Node node = root;
+        while (true) {
+            int common = commonBits(node.prefix, prefix, Math.min(node.bits, bits));
+            if (common < node.bits) {
+                // The new prefix diverges inside this node's compressed run: split it
+                Node branch = common == bits ? new Node(prefix, bits, action) : new Node(prefix, common, NONE);
+                if (common < bits) {
+                    setChild(branch, bit(prefix, common), new Node(prefix, bits, action));
+                }
+                setChild(branch, bit(node.prefix, common), node);
+                if (parent == null) {
+                    return branch;
+                }
+                setChild(parent, bit(prefix, parent.bits), branch);
+                return root;
+            }
+            if (node.bits == bits) {
+                // Same prefix listed twice: deny wins
+                node.action = node.action == NONE ? action : (byte) Math.min(node.action, action);
+                return root;
+            }
+
+            Node child = bit(prefix, node.bits) == 0 ? node.zero : node.one;
+            if (child == null) {
+                setChild(node, bit(prefix, node.bits), new Node(prefix, bits, action));
+                return root;
+            }
+            parent = node;
+            node = child;
+        }
+    }
+
+    private static void setChild(Node node, int bit, Node child) {
+        if (bit == 0) {
+            node.zero = child;
+        } else {
+            node.one = child;
+        }
+    }
+
+    private static int commonBits(byte[] a, byte[] b, int limit) {
+        int i = 0;
+        while (i < limit && bit(a, i) == bit(b, i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int bit(byte[] bytes, int index) {
+        return (bytes[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    private static void mask(byte[] bytes, int bits) {
+        for (int i = 0; i < bytes.length; i++) {
+            int keep = Math.max(0, Math.min(8, bits - i * 8));
+            bytes[i] &= (byte) (0xFF << (8 - keep));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.visoftware.artiferrium.service;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Files whose contents decide who may join or change the allowlist. On POSIX systems they are created
+ * owner-only and refused unless they belong to the current user and are closed to everyone else;
+ * elsewhere the checks are skipped.
+ */
+final class PrivateFiles {
+    static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    private static final Set<PosixFilePermission> NOT_OWNER = EnumSet.of(
+        PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_EXECUTE,
+        PosixFilePermission.OTHERS_READ, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_EXECUTE);
+
+    private PrivateFiles() {}
+
+    /** Creates {@code directory} as {@code 0700} if it is missing, then {@link #check checks} it. */
+    static void createDirectory(Path directory) throws IOException {
+        if (POSIX && !Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+        check(directory);
+    }
+
+    /** Attributes for creating a {@code 0600} file. */
+    static FileAttribute<?>[] ownerOnly() {
+        return POSIX
+            ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+            : new FileAttribute<?>[0];
+    }
+
+    // Refuses anything another local user could have created or could still modify
+    static void check(Path path) throws IOException {
+        if (!POSIX) return;
+        PosixFileAttributes attributes = Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (attributes.isSymbolicLink()) {
+            throw new IOException(path + " is a symbolic link; refusing to use it");
+        }
+        String user = System.getProperty("user.name");
+        if (!attributes.owner().getName().equals(user)) {
+            throw new IOException(path + " is owned by " + attributes.owner().getName() + ", not " + user);
+        }
+        Set<PosixFilePermission> open = EnumSet.copyOf(attributes.permissions());
+        open.retainAll(NOT_OWNER);
+        if (!open.isEmpty()) {
+            throw new IOException(path + " is accessible by other users (" + PosixFilePermissions.toString(attributes.permissions())
+                + "); restrict it to the owner");
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package dev.visoftware.artiferrium.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tracks who is online and turns it into the roster section of the heartbeat. Normally only the
+ * joins and leaves since the last acknowledged heartbeat are sent, each numbered by a sequence;
+ * a compact full snapshot is sent on the first heartbeat, every {@link #SNAPSHOT_EVERY}
+ * heartbeats, when the backend asks for a resync, or when too many changes piled up while the
+ * backend was unreachable.
+ */
+public final class RosterTracker {
+    private static final RosterTracker INSTANCE = new RosterTracker();
+    private static final int SNAPSHOT_EVERY = 20;
+    private static final int MAX_PENDING_EVENTS = 2048;
+
+    private static final class Event {
+        final long sequence;
+        final UUID player;
+        final boolean joined;
+
+        Event(long sequence, UUID player, boolean joined) {
+            this.sequence = sequence;
+            this.player = player;
+            this.joined = joined;
+        }
+    }
+
+    /** A roster section ready to be attached to a heartbeat. */
+    public static final class Payload {
+        private final JsonObject json;
+        private final long sequence;
+
+        Payload(JsonObject json, long sequence) {
+            this.json = json;
+            this.sequence = sequence;
+        }
+
+        public JsonObject getJson() {
+            return json;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+    }
+
+    // Guarded by itself; joins and leaves come from the server thread, payloads from the heartbeat
+    private final Set<UUID> online = new HashSet<>();
+    private final Deque<Event> pending = new ArrayDeque<>();
+    private long sequence;
+
+    // Only touched by the heartbeat thread
+    private long acknowledgedSequence;
+    private boolean resyncNeeded = true;
+    private int heartbeatsSinceSnapshot;
+
+    private RosterTracker() {} // Singleton
+
+    public static RosterTracker get() {
+        return INSTANCE;
+    }
+
+    public void playerJoined(UUID player) {
+        synchronized (online) {
+            if (!online.add(player)) return;
+            record(player, true);
+        }
+    }
+
+    public void playerLeft(UUID player) {
+        synchronized (online) {
+            if (!online.remove(player)) return;
+            record(player, false);
+        }
+    }
+
+    private void record(UUID player, boolean joined) {
+        pending.addLast(new Event(++sequence, player, joined));
+        if (pending.size() > MAX_PENDING_EVENTS) {
+            // The backend has been away for a long time; a snapshot is cheaper than the backlog
+            pending.clear();
+            resyncNeeded = true;
+        }
+    }
+
+    public int getOnlineCount() {
+        synchronized (online) {
+            return online.size();
+        }
+    }
+
+    /** @return the roster section for the next heartbeat, or {@code null} if nothing changed */
+    public Payload nextPayload() {
+        synchronized (online) {
+            if (resyncNeeded || heartbeatsSinceSnapshot >= SNAPSHOT_EVERY) {
+                JsonArray players = new JsonArray(online.size());
+                for (UUID player : online) {
+                    players.add(compact(player));
+                }
+
+                JsonObject json = new JsonObject();
+                json.addProperty("type", "snapshot");
+                json.addProperty("seq", sequence);
+                json.add("players", players);
+                return new Payload(json, sequence);
+            }
+
+            if (sequence == acknowledgedSequence) {
+                return null;
+            }
+
+            JsonArray events = new JsonArray(pending.size());
+            for (Event event : pending) {
+                if (event.sequence > acknowledgedSequence) {
+                    events.add((event.joined ? "+" : "-") + compact(event.player));
+                }
+            }
+
+            JsonObject json = new JsonObject();
+            json.addProperty("type", "delta");
+            json.addProperty("from", acknowledgedSequence);
+            json.addProperty("to", sequence);
+            json.add("events", events);
+            return new Payload(json, sequence);
+        }
+    }
+
+    /** Called after a heartbeat carrying {@code payload} (possibly {@code null}) succeeded. */
+    public void acknowledge(Payload payload, boolean resyncRequested) {
+        synchronized (online) {
+            if (payload != null) {
+                if ("snapshot".equals(payload.getJson().get("type").getAsString())) {
+                    resyncNeeded = false;
+                    heartbeatsSinceSnapshot = 0;
+                }
+                acknowledgedSequence = payload.getSequence();
+                while (!pending.isEmpty() && pending.peekFirst().sequence <= acknowledgedSequence) {
+                    pending.removeFirst();
+                }
+            }
+            heartbeatsSinceSnapshot++;
+            if (resyncRequested) {
+                resyncNeeded = true;
+            }
+        }
+    }
+
+    private static String compact(UUID uuid) {
+        return String.format("%016x%016x", uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+}
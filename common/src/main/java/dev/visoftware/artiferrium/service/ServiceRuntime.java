@@ -0,0 +1,166 @@
+package dev.visoftware.artiferrium.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the threads of every Artiferrium background service. Short periodic work (sweeps, polls,
+ * sampling) shares one small pool of named daemon threads; anything that blocks on the network goes
+ * to a separate I/O pool, so a backend outage cannot delay the periodic work. {@link #shutdown()}
+ * stops all services in parallel within a hard total deadline so a server stop is never held up by
+ * Artiferrium.
+ */
+public final class ServiceRuntime {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final ServiceRuntime INSTANCE = new ServiceRuntime();
+    private static final int WORKER_THREADS = 2;
+    // Heartbeat, scheduled allowlist fetch and one on-demand refresh can all block at once
+    private static final int IO_THREADS = 3;
+    private static final long SHUTDOWN_DEADLINE_MILLIS = 3000;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ScheduledThreadPoolExecutor ioScheduler;
+    private final List<ManagedService> services = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean stopping = new AtomicBoolean(false);
+
+    private ServiceRuntime() {
+        this.scheduler = newPool(WORKER_THREADS, "Artiferrium-Worker-");
+        this.ioScheduler = newPool(IO_THREADS, "Artiferrium-IO-");
+    }
+
+    private static ScheduledThreadPoolExecutor newPool(int threads, String namePrefix) {
+        AtomicInteger threadId = new AtomicInteger();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread thread = new Thread(r, namePrefix + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        // Pending periodic work (the next heartbeat, refresh, ...) is dropped on shutdown rather than awaited
+        pool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return pool;
+    }
+
+    public static ServiceRuntime get() {
+        return INSTANCE;
+    }
+
+    public void register(ManagedService service) {
+        services.add(service);
+    }
+
+    public boolean isRunning() {
+        return !stopping.get();
+    }
+
+    public int getQueuedTaskCount() {
+        return scheduler.getQueue().size();
+    }
+
+    public int getActiveTaskCount() {
+        return scheduler.getActiveCount();
+    }
+
+    public List<ManagedService> getServices() {
+        return List.copyOf(services);
+    }
+
+    /** @return the scheduled task, or {@code null} if the runtime is shutting down */
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopping.get()) return null;
+        try {
+            return scheduler.schedule(task, delay, unit);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    public void execute(Runnable task) {
+        if (stopping.get()) {
+            throw new RejectedExecutionException("Artiferrium is shutting down");
+        }
+        scheduler.execute(task);
+    }
+
+    /** Like {@link #schedule}, for tasks that block on the network. */
+    public ScheduledFuture<?> scheduleBlocking(Runnable task, long delay, TimeUnit unit) {
+        if (stopping.get()) return null;
+        try {
+            return ioScheduler.schedule(task, delay, unit);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /** Like {@link #execute}, for tasks that block on the network. */
+    public void executeBlocking(Runnable task) {
+        if (stopping.get()) {
+            throw new RejectedExecutionException("Artiferrium is shutting down");
+        }
+        ioScheduler.execute(task);
+    }
+
+    public int getIoQueuedTaskCount() {
+        return ioScheduler.getQueue().size();
+    }
+
+    public int getIoActiveTaskCount() {
+        return ioScheduler.getActiveCount();
+    }
+
+    public void shutdown() {
+        if (!stopping.compareAndSet(false, true)) return;
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_DEADLINE_MILLIS);
+        scheduler.shutdown();
+        ioScheduler.shutdown();
+
+        List<Thread> stoppers = new ArrayList<>();
+        for (ManagedService service : services) {
+            Thread thread = new Thread(() -> {
+                try {
+                    service.stop();
+                } catch (Exception e) {
+                    LOGGER.error("Failed to stop {}", service.getName(), e);
+                }
+            }, "Artiferrium-Stop-" + service.getName());
+            thread.setDaemon(true);
+            thread.start();
+            stoppers.add(thread);
+        }
+
+        try {
+            for (int i = 0; i < stoppers.size(); i++) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining > 0) stoppers.get(i).join(remaining);
+                if (stoppers.get(i).isAlive()) {
+                    LOGGER.warn("{} did not stop within the shutdown deadline, abandoning it", services.get(i).getName());
+                }
+            }
+
+            for (ScheduledThreadPoolExecutor pool : List.of(scheduler, ioScheduler)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !pool.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    pool.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            ioScheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        LOGGER.info("Artiferrium services stopped in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
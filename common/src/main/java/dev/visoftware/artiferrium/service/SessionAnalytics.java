@@ -0,0 +1,284 @@
+package dev.visoftware.artiferrium.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import dev.visoftware.artiferrium.constants.ApiConstants;
+import dev.visoftware.artiferrium.http.ApiClient;
+import dev.visoftware.artiferrium.http.ApiRequest;
+import dev.visoftware.artiferrium.http.ApiResponse;
+import dev.visoftware.artiferrium.metrics.ArtiferriumMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Session lengths, peak concurrency and returning players for this server. Joins and leaves only
+ * touch lock-free structures; once per heartbeat the heartbeat thread cuts a batch, spools it to
+ * disk and uploads everything spooled in a single compressed request. Batches that could not be
+ * sent stay on disk until a later heartbeat (or the next server start) gets them through. A batch
+ * is only cut when something changed, so a quiet server keeps extending the current window.
+ * <p>
+ * A returning join is a player who already joined earlier the same day (UTC); the set of players
+ * seen is reset at midnight so it never outgrows one day of players.
+ */
+public final class SessionAnalytics implements ManagedService {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final SessionAnalytics INSTANCE = new SessionAnalytics();
+    private static final Gson GSON = new Gson();
+    private static final String BATCH_PREFIX = "batch-";
+    private static final String BATCH_SUFFIX = ".json";
+    private static final int MAX_BATCHES_PER_UPLOAD = 16;
+    private static final int MAX_SPOOLED_BATCHES = 512;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final class Session {
+        final UUID player;
+        final long startMillis;
+        final long durationMillis;
+
+        Session(UUID player, long startMillis, long durationMillis) {
+            this.player = player;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+        }
+    }
+
+    private final Map<UUID, Long> openSessions = new ConcurrentHashMap<>();
+    private final java.util.Set<UUID> seenPlayers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong seenDay = new AtomicLong(System.currentTimeMillis() / DAY_MILLIS);
+    private final ConcurrentLinkedQueue<Session> finishedSessions = new ConcurrentLinkedQueue<>();
+    private final LongAdder joins = new LongAdder();
+    private final LongAdder returningJoins = new LongAdder();
+    private final AtomicInteger online = new AtomicInteger();
+    private final AtomicInteger peakOnline = new AtomicInteger();
+    private final AtomicLong windowStart = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong batchSequence = new AtomicLong();
+    // Only touched by whoever cuts batches: the heartbeat thread, then stop()
+    private int lastBatchPeak;
+
+    private volatile Path spoolDir;
+
+    private SessionAnalytics() {} // Singleton
+
+    public static SessionAnalytics get() {
+        return INSTANCE;
+    }
+
+    /** Enables spooling and uploads; until then sessions are only counted in memory. */
+    public void start(Path spoolDir) {
+        try {
+            Files.createDirectories(spoolDir);
+            this.spoolDir = spoolDir;
+            ServiceRuntime.get().register(this);
+        } catch (IOException e) {
+            LOGGER.error("Failed to create analytics directory {}, session analytics disabled", spoolDir, e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Session analytics";
+    }
+
+    @Override
+    public Map<String, Object> diagnostics() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("open_sessions", openSessions.size());
+        state.put("finished_sessions_pending", finishedSessions.size());
+        state.put("peak_online", peakOnline.get());
+        Path dir = spoolDir;
+        if (dir != null) {
+            try (Stream<Path> files = Files.list(dir)) {
+                state.put("spooled_batches", files.filter(f -> f.getFileName().toString().startsWith(BATCH_PREFIX)).count());
+            } catch (IOException e) {
+                state.put("spooled_batches", "unreadable: " + e.getMessage());
+            }
+        }
+        return state;
+    }
+
+    public void playerJoined(UUID player) {
+        long now = System.currentTimeMillis();
+        if (openSessions.putIfAbsent(player, now) != null) return;
+        joins.increment();
+        long day = now / DAY_MILLIS;
+        long previousDay = seenDay.get();
+        if (day != previousDay && seenDay.compareAndSet(previousDay, day)) {
+            seenPlayers.clear();
+        }
+        if (!seenPlayers.add(player)) {
+            returningJoins.increment();
+        }
+        int count = online.incrementAndGet();
+        peakOnline.accumulateAndGet(count, Math::max);
+    }
+
+    public void playerLeft(UUID player) {
+        Long start = openSessions.remove(player);
+        if (start == null) return;
+        online.decrementAndGet();
+        long now = System.currentTimeMillis();
+        finishedSessions.add(new Session(player, start, now - start));
+    }
+
+    /**
+     * Cuts the current batch and uploads it together with any spooled ones. Runs on the heartbeat
+     * thread after a successful heartbeat; failures leave the batches on disk for the next try.
+     */
+    public void flush(String sessionKey, String sessionId) {
+        Path dir = spoolDir;
+        if (dir == null) return;
+
+        try {
+            spool(dir, cutBatch(false));
+            upload(dir, sessionKey, sessionId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            ArtiferriumMetrics.get().counter("analytics.upload_failures").increment();
+            LOGGER.debug("Failed to upload session analytics, keeping batches for later: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() throws IOException {
+        Path dir = spoolDir;
+        if (dir == null) return;
+        // Close out the sessions of players still online; the batch is uploaded after the next start
+        spool(dir, cutBatch(true));
+    }
+
+    private JsonObject cutBatch(boolean closeOpenSessions) {
+        long now = System.currentTimeMillis();
+        JsonArray sessions = new JsonArray();
+        Session session;
+        while ((session = finishedSessions.poll()) != null) {
+            sessions.add(toJson(session));
+        }
+        if (closeOpenSessions) {
+            // Closed on a copy so the live counters stay as they are while the final batch is cut
+            for (Map.Entry<UUID, Long> open : new LinkedHashMap<>(openSessions).entrySet()) {
+                sessions.add(toJson(new Session(open.getKey(), open.getValue(), now - open.getValue())));
+            }
+        }
+
+        long batchJoins = joins.sumThenReset();
+        long batchReturning = returningJoins.sumThenReset();
+        int peak = peakOnline.getAndSet(online.get());
+        if (batchJoins == 0 && sessions.size() == 0 && peak == lastBatchPeak) {
+            // Nothing new to report; an empty server starts a fresh window, a busy one extends it
+            if (peak == 0) {
+                windowStart.set(now);
+            }
+            return null;
+        }
+        lastBatchPeak = peak;
+
+        JsonObject batch = new JsonObject();
+        batch.addProperty("from", windowStart.getAndSet(now));
+        batch.addProperty("to", now);
+        batch.addProperty("joins", batchJoins);
+        batch.addProperty("returningJoins", batchReturning);
+        batch.addProperty("peakOnline", peak);
+        batch.add("sessions", sessions);
+        return batch;
+    }
+
+    private static JsonArray toJson(Session session) {
+        JsonArray entry = new JsonArray(3);
+        entry.add(String.format("%016x%016x",
+            session.player.getMostSignificantBits(), session.player.getLeastSignificantBits()));
+        entry.add(session.startMillis);
+        entry.add(session.durationMillis);
+        return entry;
+    }
+
+    private void spool(Path dir, JsonObject batch) throws IOException {
+        if (batch == null) return;
+
+        String name = BATCH_PREFIX + batch.get("to").getAsLong() + "-" + batchSequence.incrementAndGet() + BATCH_SUFFIX;
+        Path temp = dir.resolve(name + ".tmp");
+        Files.writeString(temp, GSON.toJson(batch));
+        Files.move(temp, dir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> spooled = listBatches(dir);
+        // Drop the oldest batches rather than letting a long outage fill the disk
+        for (int i = 0; i < spooled.size() - MAX_SPOOLED_BATCHES; i++) {
+            Files.deleteIfExists(spooled.get(i));
+            ArtiferriumMetrics.get().counter("analytics.batches_dropped").increment();
+        }
+    }
+
+    private void upload(Path dir, String sessionKey, String sessionId) throws Exception {
+        List<Path> spooled = listBatches(dir);
+        if (spooled.isEmpty()) return;
+        List<Path> sending = spooled.subList(0, Math.min(MAX_BATCHES_PER_UPLOAD, spooled.size()));
+
+        JsonArray batches = new JsonArray(sending.size());
+        for (Path file : sending) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                JsonObject batch = GSON.fromJson(reader, JsonObject.class);
+                if (batch != null) {
+                    batches.add(batch);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Discarding unreadable analytics batch {}", file.getFileName());
+                Files.deleteIfExists(file);
+            }
+        }
+        if (batches.size() == 0) return;
+
+        JsonObject body = new JsonObject();
+        body.add("batches", batches);
+        ApiRequest request = ApiRequest.post(ApiConstants.SERVER_ANALYTICS_ENDPOINT)
+                .header("sessionkey", sessionKey)
+                .header("sessionid", sessionId)
+                .jsonBody(body, true);
+
+        ApiResponse response = ApiClient.get().send(request);
+        if (response.statusCode() != 200) {
+            throw new IOException("Analytics upload failed with status " + response.statusCode());
+        }
+
+        for (Path file : sending) {
+            Files.deleteIfExists(file);
+        }
+        ArtiferriumMetrics.get().counter("analytics.batches_uploaded").add(batches.size());
+    }
+
+    // Oldest first; names sort by the batch's end time
+    private static List<Path> listBatches(Path dir) throws IOException {
+        List<Path> batches = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, BATCH_PREFIX + "*" + BATCH_SUFFIX)) {
+            stream.forEach(batches::add);
+        }
+        batches.sort(null);
+        return batches;
+    }
+
+    public int getOnlineCount() {
+        return online.get();
+    }
+
+    public int getPeakOnline() {
+        return peakOnline.get();
+    }
+}
@@ -0,0 +1,356 @@
+package dev.visoftware.artiferrium.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Allowlist shared by every Artiferrium instance of the same server on one host.
+ * <p>
+ * The instance holding the lock file is the leader: it fetches the allowlist and publishes it
+ * into a memory-mapped file. Every other instance maps that file read-only and looks players up
+ * directly in it, so the list is fetched and held in memory once per host instead of once per
+ * instance. When the leader goes away its lock is released and the next follower to poll takes
+ * over.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ *   0  int   magic
+ *   4  int   format version
+ *   8  long  generation, incremented on every publish; its lowest bit selects the active region
+ *  16  long  published-at epoch millis
+ *  24  long  region 0 offset      32  long  region 0 entry count
+ *  40  long  region 1 offset      48  long  region 1 entry count
+ *  64  ...   regions of sorted entries: long msb, long lsb, long flags
+ * </pre>
+ * The leader always writes the inactive region and then bumps the generation, so readers never
+ * block; a reader that sees the generation move during a lookup simply retries.
+ * <p>
+ * Whoever can write these files decides who may join, so on POSIX systems the directory is created
+ * {@code 0700} and the files {@code 0600}, and none of them is trusted unless it is owned by the
+ * current user and closed to everyone else.
+ */
+public final class SharedAllowlistCache implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final int MAGIC = 0x41525441; // "ARTA"
+    private static final int FORMAT_VERSION = 1;
+    private static final int GENERATION_OFFSET = 8;
+    private static final int PUBLISHED_AT_OFFSET = 16;
+    private static final int REGIONS_OFFSET = 24;
+    private static final int HEADER_SIZE = 64;
+    public static final int ENTRY_LONGS = 3;
+    private static final int ENTRY_SIZE = ENTRY_LONGS * Long.BYTES;
+
+    private final Path dataFile;
+    private final Path lockFile;
+    private final Path rulesFile;
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private FileChannel dataChannel;
+    private volatile MappedByteBuffer buffer;
+    // Set once the header has pointed outside the file even after a fresh mapping
+    private volatile boolean damaged;
+
+    private SharedAllowlistCache(Path dataFile, Path lockFile, Path rulesFile) {
+        this.dataFile = dataFile;
+        this.rulesFile = rulesFile;
+        this.lockFile = lockFile;
+    }
+
+    public static SharedAllowlistCache open(Path directory, String serverId) throws IOException {
+        PrivateFiles.createDirectory(directory);
+        String name = serverId.replaceAll("[^A-Za-z0-9_-]", "_");
+        SharedAllowlistCache cache = new SharedAllowlistCache(
+            directory.resolve(name + ".allowlist"), directory.resolve(name + ".lock"), directory.resolve(name + ".rules.json"));
+        cache.lockChannel = FileChannel.open(cache.lockFile,
+            Set.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE), PrivateFiles.ownerOnly());
+        PrivateFiles.check(cache.lockFile);
+        cache.tryBecomeLeader();
+        return cache;
+    }
+
+    /** Replaces the network rules, which are small enough to share as plain JSON next to the list. */
+    public void writeRules(String json) throws IOException {
+        Path temp = rulesFile.resolveSibling(rulesFile.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        Files.write(Files.createFile(temp, PrivateFiles.ownerOnly()), json.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, rulesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** @return the leader's network rules JSON, or {@code null} if it has not written any */
+    public String readRules() throws IOException {
+        if (!Files.exists(rulesFile, LinkOption.NOFOLLOW_LINKS)) return null;
+        PrivateFiles.check(rulesFile);
+        return Files.readString(rulesFile, StandardCharsets.UTF_8);
+    }
+
+    public synchronized boolean isLeader() {
+        return lock != null;
+    }
+
+    /** @return whether this instance is the leader after the call */
+    public synchronized boolean tryBecomeLeader() throws IOException {
+        if (lock != null) return true;
+
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) return false;
+
+        LOGGER.info("This instance now maintains the shared allowlist cache at {}", dataFile);
+        if (dataChannel != null) dataChannel.close();
+        dataChannel = FileChannel.open(dataFile,
+            Set.of(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE), PrivateFiles.ownerOnly());
+        PrivateFiles.check(dataFile);
+        if (dataChannel.size() < HEADER_SIZE) {
+            MappedByteBuffer fresh = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            fresh.putInt(0, MAGIC);
+            fresh.putInt(4, FORMAT_VERSION);
+            buffer = fresh;
+        } else {
+            buffer = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, dataChannel.size());
+        }
+        return true;
+    }
+
+    /** @return whether a valid, published allowlist is available for lookups */
+    public boolean isReady() {
+        MappedByteBuffer b = mapForReading();
+        return b != null && generation(b) > 0;
+    }
+
+    public long getGeneration() {
+        MappedByteBuffer b = mapForReading();
+        return b != null ? generation(b) : 0;
+    }
+
+    public long getPublishedAtMillis() {
+        MappedByteBuffer b = mapForReading();
+        return b != null ? b.getLong(PUBLISHED_AT_OFFSET) : 0;
+    }
+
+    public int size() {
+        MappedByteBuffer b = mapForReading();
+        if (b == null) return 0;
+        int region = (int) (generation(b) & 1);
+        return (int) b.getLong(REGIONS_OFFSET + region * 16 + 8);
+    }
+
+    /**
+     * Publishes a new allowlist. Only the leader may call this.
+     *
+     * @param entries {@link #ENTRY_LONGS} longs per entry (msb, lsb, flags), sorted by msb then lsb
+     */
+    public synchronized void publish(long[] entries) throws IOException {
+        if (lock == null) {
+            throw new IllegalStateException("Only the shared cache leader can publish");
+        }
+
+        MappedByteBuffer b = buffer;
+        long generation = generation(b);
+        int target = (int) ((generation + 1) & 1);
+        long count = entries.length / ENTRY_LONGS;
+        long needed = count * ENTRY_SIZE;
+
+        long offset = b.getLong(REGIONS_OFFSET + target * 16);
+        long capacity = regionCapacity(b, target);
+        if (offset < HEADER_SIZE || capacity < needed || offset + needed > b.capacity()) {
+            // Grow by appending a fresh region; the active region must stay where readers expect it
+            offset = Math.max(HEADER_SIZE, b.capacity());
+            long newSize = offset + Math.max(needed * 2, 4096);
+            b = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+            buffer = b;
+        }
+
+        int position = (int) offset;
+        for (long value : entries) {
+            b.putLong(position, value);
+            position += Long.BYTES;
+        }
+        b.putLong(REGIONS_OFFSET + target * 16, offset);
+        b.putLong(REGIONS_OFFSET + target * 16 + 8, count);
+        b.putLong(PUBLISHED_AT_OFFSET, System.currentTimeMillis());
+        LONGS.setRelease(b, GENERATION_OFFSET, generation + 1);
+        damaged = false;
+    }
+
+    /** @return the flags stored for the UUID, or -1 if it is not in the shared allowlist */
+    public long lookup(long msb, long lsb) {
+        boolean remapped = false;
+        while (true) {
+            MappedByteBuffer b = mapForReading();
+            if (b == null) return -1;
+
+            long generation = generation(b);
+            int region = (int) (generation & 1);
+            long offset = b.getLong(REGIONS_OFFSET + region * 16);
+            long count = b.getLong(REGIONS_OFFSET + region * 16 + 8);
+            if (!fits(b, offset, count)) {
+                if (generation(b) != generation) continue;
+                if (!remapOnce(remapped, offset, count)) return -1;
+                remapped = true;
+                continue;
+            }
+
+            long result = binarySearch(b, offset, count, msb, lsb);
+
+            VarHandle.loadLoadFence();
+            if (generation(b) == generation) {
+                return result;
+            }
+            // The leader republished while we were searching; look again in the new region
+        }
+    }
+
+    /**
+     * @return a copy of the published allowlist in the {@link #publish} layout, or {@code null} if
+     * nothing has been published yet
+     */
+    public long[] entries() {
+        boolean remapped = false;
+        while (true) {
+            MappedByteBuffer b = mapForReading();
+            if (b == null) return null;
+
+            long generation = generation(b);
+            if (generation == 0) return null;
+            int region = (int) (generation & 1);
+            long offset = b.getLong(REGIONS_OFFSET + region * 16);
+            long count = b.getLong(REGIONS_OFFSET + region * 16 + 8);
+            if (!fits(b, offset, count)) {
+                if (generation(b) != generation) continue;
+                if (!remapOnce(remapped, offset, count)) return null;
+                remapped = true;
+                continue;
+            }
+
+            long[] entries = new long[(int) count * ENTRY_LONGS];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = b.getLong((int) offset + i * Long.BYTES);
+            }
+
+            VarHandle.loadLoadFence();
+            if (generation(b) == generation) {
+                return entries;
+            }
+        }
+    }
+
+    private static long binarySearch(MappedByteBuffer b, long offset, long count, long msb, long lsb) {
+        long low = 0;
+        long high = count - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int position = (int) (offset + mid * ENTRY_SIZE);
+            int cmp = Long.compare(b.getLong(position), msb);
+            if (cmp == 0) cmp = Long.compare(b.getLong(position + 8), lsb);
+
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return b.getLong(position + 16);
+            }
+        }
+        return -1;
+    }
+
+    // Checked without multiplying, so a damaged count cannot overflow its way past the bounds
+    private static boolean fits(MappedByteBuffer b, long offset, long count) {
+        return offset >= HEADER_SIZE && offset <= b.capacity() && count >= 0
+            && count <= (b.capacity() - offset) / ENTRY_SIZE;
+    }
+
+    /**
+     * The header points past the mapping: either the leader grew the file since we mapped it, which
+     * one fresh mapping fixes, or the file is damaged. In that case stop trusting it so lookups fail
+     * closed instead of spinning, until this instance publishes a new list as the leader.
+     */
+    private boolean remapOnce(boolean remapped, long offset, long count) {
+        if (!remapped) {
+            return remap() != null;
+        }
+        if (!damaged) {
+            damaged = true;
+            LOGGER.error("Shared allowlist cache {} is damaged ({} entries at offset {} do not fit in the file); ignoring it",
+                dataFile, count, offset);
+        }
+        return false;
+    }
+
+    private static long generation(MappedByteBuffer b) {
+        return (long) LONGS.getAcquire(b, GENERATION_OFFSET);
+    }
+
+    private long regionCapacity(MappedByteBuffer b, int region) {
+        long offset = b.getLong(REGIONS_OFFSET + region * 16);
+        long otherOffset = b.getLong(REGIONS_OFFSET + (1 - region) * 16);
+        long end = otherOffset > offset ? otherOffset : b.capacity();
+        return end - offset;
+    }
+
+    private MappedByteBuffer mapForReading() {
+        if (damaged) return null;
+        MappedByteBuffer b = buffer;
+        return b != null ? b : remap();
+    }
+
+    private synchronized MappedByteBuffer remap() {
+        try {
+            if (lock != null) {
+                buffer = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, dataChannel.size());
+                return buffer;
+            }
+
+            if (dataChannel == null) {
+                if (!Files.exists(dataFile, LinkOption.NOFOLLOW_LINKS)) return null;
+                PrivateFiles.check(dataFile);
+                dataChannel = FileChannel.open(dataFile, StandardOpenOption.READ);
+            }
+            long size = dataChannel.size();
+            if (size < HEADER_SIZE) return null;
+
+            MappedByteBuffer mapped = dataChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT_VERSION) {
+                LOGGER.warn("Ignoring shared allowlist cache {} with unknown format", dataFile);
+                return null;
+            }
+            buffer = mapped;
+            return mapped;
+        } catch (IOException e) {
+            LOGGER.debug("Failed to map shared allowlist cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer = null;
+        if (lock != null) {
+            lock.release();
+            lock = null;
+        }
+        if (dataChannel != null) dataChannel.close();
+        lockChannel.close();
+    }
+}
@@ -0,0 +1,366 @@
+package dev.visoftware.artiferrium.service;
+
+import dev.visoftware.artiferrium.Artiferrium;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Round-robin history of the server's vital signs, kept locally so {@code /artiferrium trends} works
+ * without any monitoring stack. Every 10 seconds one sample per {@link Series} is consolidated into
+ * each {@link Resolution}; a resolution is a fixed ring of slots, so the store never grows. Gauges keep
+ * the average and maximum of their samples per slot, counters the total and the busiest sample.
+ * <p>
+ * The rings live in primitive arrays and are copied into a memory-mapped file once a minute and on
+ * shutdown, so history survives restarts. File layout (big-endian):
+ * <pre>
+ *   0  int  magic      4  int  format version      8  int  series count      12  int  reserved
+ *  16  per resolution (10s, 1m, 1h), each array series-major (all slots of series 0, then series 1, ...):
+ *        long[slots] slot bucket | float[series * slots] value | float[series * slots] max | int[series * slots] samples
+ * </pre>
+ */
+public final class StatsHistory implements ManagedService {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final StatsHistory INSTANCE = new StatsHistory();
+    private static final int MAGIC = 0x41525448; // "ARTH"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SAMPLE_SECONDS = 10;
+    private static final int PERSIST_EVERY_SAMPLES = 6;
+
+    public enum Series {
+        PLAYERS("players", false),
+        HEARTBEAT_MILLIS("heartbeat ms", false),
+        TICK_MILLIS("tick ms", false),
+        JOINS("joins", true),
+        DENIED("denied", true);
+
+        private final String label;
+        private final boolean counter;
+
+        Series(String label, boolean counter) {
+            this.label = label;
+            this.counter = counter;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /** Counters sum their samples per slot; gauges average them. */
+        public boolean isCounter() {
+            return counter;
+        }
+    }
+
+    public enum Resolution {
+        TEN_SECONDS("10s", 10, 360, 60),
+        MINUTE("1m", 60, 1440, 60),
+        HOUR("1h", 3600, 720, 48);
+
+        private final String id;
+        private final int stepSeconds;
+        private final int slots;
+        private final int defaultWindow;
+
+        Resolution(String id, int stepSeconds, int slots, int defaultWindow) {
+            this.id = id;
+            this.stepSeconds = stepSeconds;
+            this.slots = slots;
+            this.defaultWindow = defaultWindow;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getStepSeconds() {
+            return stepSeconds;
+        }
+
+        /** How many slots the trends command shows by default. */
+        public int getDefaultWindow() {
+            return defaultWindow;
+        }
+    }
+
+    private static final class Ring {
+        final Resolution resolution;
+        final long[] buckets;
+        final float[] values;
+        final float[] maxima;
+        final int[] samples;
+
+        Ring(Resolution resolution) {
+            int cells = Series.values().length * resolution.slots;
+            this.resolution = resolution;
+            this.buckets = new long[resolution.slots];
+            this.values = new float[cells];
+            this.maxima = new float[cells];
+            this.samples = new int[cells];
+            Arrays.fill(buckets, -1);
+        }
+
+        int byteSize() {
+            return buckets.length * Long.BYTES + values.length * (Float.BYTES * 2 + Integer.BYTES);
+        }
+    }
+
+    /** One series over a window of slots, oldest first; slots without samples are {@code NaN}. */
+    public static final class Window {
+        private final float[] values;
+        private final float[] maxima;
+
+        Window(float[] values, float[] maxima) {
+            this.values = values;
+            this.maxima = maxima;
+        }
+
+        public float[] getValues() {
+            return values;
+        }
+
+        public float[] getMaxima() {
+            return maxima;
+        }
+    }
+
+    private final Ring[] rings;
+    private final LongAdder joins = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+    private long heartbeatNanos;
+    private int heartbeatCount;
+
+    private volatile Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int samplesSincePersist;
+
+    private StatsHistory() { // Singleton
+        Resolution[] resolutions = Resolution.values();
+        rings = new Ring[resolutions.length];
+        for (int i = 0; i < resolutions.length; i++) {
+            rings[i] = new Ring(resolutions[i]);
+        }
+    }
+
+    public static StatsHistory get() {
+        return INSTANCE;
+    }
+
+    /** Loads any history left in {@code file} and starts sampling. */
+    public synchronized void start(Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            int size = HEADER_SIZE;
+            for (Ring ring : rings) {
+                size += ring.byteSize();
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean existing = channel.size() == size;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (existing && buffer.getInt(0) == MAGIC && buffer.getInt(4) == FORMAT_VERSION
+                && buffer.getInt(8) == Series.values().length) {
+                load();
+            } else {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT_VERSION);
+                buffer.putInt(8, Series.values().length);
+                persist();
+            }
+            this.file = file;
+            ServiceRuntime.get().register(this);
+            scheduleSample();
+        } catch (IOException e) {
+            LOGGER.error("Failed to open stats history at {}, trends disabled", file, e);
+            closeQuietly();
+        }
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    public void recordJoin() {
+        joins.increment();
+    }
+
+    public void recordDenied() {
+        denied.increment();
+    }
+
+    public synchronized void recordHeartbeat(long nanos) {
+        heartbeatNanos += nanos;
+        heartbeatCount++;
+    }
+
+    /** The last {@code count} slots of {@code series} at {@code resolution}, ending with the current one. */
+    public synchronized Window window(Series series, Resolution resolution, int count) {
+        Ring ring = rings[resolution.ordinal()];
+        count = Math.min(count, resolution.slots);
+        long current = System.currentTimeMillis() / 1000 / resolution.stepSeconds;
+        float[] values = new float[count];
+        float[] maxima = new float[count];
+        for (int i = 0; i < count; i++) {
+            long bucket = current - (count - 1 - i);
+            int slot = (int) (bucket % resolution.slots);
+            int cell = series.ordinal() * resolution.slots + slot;
+            boolean present = ring.buckets[slot] == bucket && ring.samples[cell] > 0;
+            values[i] = present ? ring.values[cell] : Float.NaN;
+            maxima[i] = present ? ring.maxima[cell] : Float.NaN;
+        }
+        return new Window(values, maxima);
+    }
+
+    @Override
+    public String getName() {
+        return "Stats history";
+    }
+
+    @Override
+    public synchronized Map<String, Object> diagnostics() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("file", file);
+        for (Ring ring : rings) {
+            long filled = Arrays.stream(ring.buckets).filter(bucket -> bucket >= 0).count();
+            state.put("slots_" + ring.resolution.id, filled + "/" + ring.resolution.slots);
+        }
+        return state;
+    }
+
+    @Override
+    public synchronized void stop() throws IOException {
+        if (buffer == null) return;
+        persist();
+        buffer.force();
+        closeQuietly();
+    }
+
+    private void scheduleSample() {
+        ServiceRuntime.get().schedule(() -> {
+            try {
+                sample();
+            } catch (Exception e) {
+                LOGGER.debug("Failed to record stats sample: {}", e.getMessage());
+            }
+            scheduleSample();
+        }, SAMPLE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void sample() {
+        float[] sample = new float[Series.values().length];
+        sample[Series.PLAYERS.ordinal()] = Artiferrium.getCurrentPlayerCount();
+        sample[Series.TICK_MILLIS.ordinal()] = Artiferrium.getAverageTickMillis();
+        sample[Series.JOINS.ordinal()] = joins.sumThenReset();
+        sample[Series.DENIED.ordinal()] = denied.sumThenReset();
+
+        synchronized (this) {
+            // Heartbeats are slower than samples; a sample without one leaves a gap rather than a zero
+            sample[Series.HEARTBEAT_MILLIS.ordinal()] = heartbeatCount > 0
+                ? heartbeatNanos / heartbeatCount / 1_000_000f : Float.NaN;
+            heartbeatNanos = 0;
+            heartbeatCount = 0;
+
+            long nowSeconds = System.currentTimeMillis() / 1000;
+            for (Ring ring : rings) {
+                add(ring, nowSeconds, sample);
+            }
+            if (buffer != null && ++samplesSincePersist >= PERSIST_EVERY_SAMPLES) {
+                persist();
+            }
+        }
+    }
+
+    private static void add(Ring ring, long nowSeconds, float[] sample) {
+        int slots = ring.resolution.slots;
+        long bucket = nowSeconds / ring.resolution.stepSeconds;
+        int slot = (int) (bucket % slots);
+        if (ring.buckets[slot] != bucket) {
+            // The slot still holds data from a previous lap around the ring
+            ring.buckets[slot] = bucket;
+            for (int s = 0; s < sample.length; s++) {
+                int cell = s * slots + slot;
+                ring.values[cell] = 0;
+                ring.maxima[cell] = 0;
+                ring.samples[cell] = 0;
+            }
+        }
+
+        Series[] series = Series.values();
+        for (int s = 0; s < sample.length; s++) {
+            float value = sample[s];
+            if (Float.isNaN(value)) continue;
+            int cell = s * slots + slot;
+            int n = ring.samples[cell];
+            if (series[s].counter) {
+                ring.values[cell] += value;
+            } else {
+                ring.values[cell] += (value - ring.values[cell]) / (n + 1);
+            }
+            ring.maxima[cell] = n == 0 ? value : Math.max(ring.maxima[cell], value);
+            ring.samples[cell] = n + 1;
+        }
+    }
+
+    private void load() {
+        int position = HEADER_SIZE;
+        for (Ring ring : rings) {
+            buffer.position(position);
+            buffer.asLongBuffer().get(ring.buckets);
+            position += ring.buckets.length * Long.BYTES;
+            buffer.position(position);
+            buffer.asFloatBuffer().get(ring.values);
+            position += ring.values.length * Float.BYTES;
+            buffer.position(position);
+            buffer.asFloatBuffer().get(ring.maxima);
+            position += ring.maxima.length * Float.BYTES;
+            buffer.position(position);
+            buffer.asIntBuffer().get(ring.samples);
+            position += ring.samples.length * Integer.BYTES;
+        }
+        buffer.position(0);
+    }
+
+    private void persist() {
+        int position = HEADER_SIZE;
+        for (Ring ring : rings) {
+            buffer.position(position);
+            buffer.asLongBuffer().put(ring.buckets);
+            position += ring.buckets.length * Long.BYTES;
+            buffer.position(position);
+            buffer.asFloatBuffer().put(ring.values);
+            position += ring.values.length * Float.BYTES;
+            buffer.position(position);
+            buffer.asFloatBuffer().put(ring.maxima);
+            position += ring.maxima.length * Float.BYTES;
+            buffer.position(position);
+            buffer.asIntBuffer().put(ring.samples);
+            position += ring.samples.length * Integer.BYTES;
+        }
+        buffer.position(0);
+        samplesSincePersist = 0;
+    }
+
+    private void closeQuietly() {
+        buffer = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to save
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.visoftware.artiferrium.service;
+
+import dev.visoftware.artiferrium.api.AllowlistInfo;
+import dev.visoftware.artiferrium.api.AllowlistListener;
+import dev.visoftware.artiferrium.api.ArtiferriumStatus;
+import dev.visoftware.artiferrium.api.ConnectionListener;
+import dev.visoftware.artiferrium.api.ConnectionState;
+import dev.visoftware.artiferrium.api.ServerInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+public final class StatusTracker {
+    private static final Logger LOGGER = LoggerFactory.getLogger("Artiferrium");
+    private static final StatusTracker INSTANCE = new StatusTracker();
+
+    private final AtomicReference<ArtiferriumStatus> status = new AtomicReference<>(ArtiferriumStatus.INITIAL);
+    private final List<AllowlistListener> allowlistListeners = new CopyOnWriteArrayList<>();
+    private final List<ConnectionListener> connectionListeners = new CopyOnWriteArrayList<>();
+
+    private StatusTracker() {} // Singleton
+
+    public static StatusTracker get() {
+        return INSTANCE;
+    }
+
+    public ArtiferriumStatus current() {
+        return status.get();
+    }
+
+    public void addAllowlistListener(AllowlistListener listener) {
+        allowlistListeners.add(listener);
+    }
+
+    public void removeAllowlistListener(AllowlistListener listener) {
+        allowlistListeners.remove(listener);
+    }
+
+    public void addConnectionListener(ConnectionListener listener) {
+        connectionListeners.add(listener);
+    }
+
+    public void removeConnectionListener(ConnectionListener listener) {
+        connectionListeners.remove(listener);
+    }
+
+    public void serverInfoUpdated(ServerInfo server) {
+        update(s -> s.withServer(server));
+    }
+
+    public void heartbeatSucceeded(int playerCount, long heartbeatMillis) {
+        ArtiferriumStatus[] transition = update(s -> s.withHeartbeatSuccess(playerCount, heartbeatMillis));
+        fireConnectionChange(transition[0].getConnectionState(), transition[1].getConnectionState());
+    }
+
+    public void heartbeatFailed() {
+        ArtiferriumStatus[] transition = update(ArtiferriumStatus::withHeartbeatFailure);
+        fireConnectionChange(transition[0].getConnectionState(), transition[1].getConnectionState());
+    }
+
+    public void allowlistUpdated(UnaryOperator<AllowlistInfo> change) {
+        ArtiferriumStatus[] transition = update(s -> s.withAllowlist(change.apply(s.getAllowlist())));
+        AllowlistInfo previous = transition[0].getAllowlist();
+        AllowlistInfo current = transition[1].getAllowlist();
+        if (previous.getVersion() == current.getVersion()) return;
+
+        for (AllowlistListener listener : allowlistListeners) {
+            try {
+                listener.onAllowlistChanged(previous, current);
+            } catch (RuntimeException e) {
+                LOGGER.error("Allowlist listener {} failed", listener, e);
+            }
+        }
+    }
+
+    private void fireConnectionChange(ConnectionState previous, ConnectionState current) {
+        if (previous == current) return;
+
+        for (ConnectionListener listener : connectionListeners) {
+            try {
+                listener.onConnectionStateChanged(previous, current);
+            } catch (RuntimeException e) {
+                LOGGER.error("Connection listener {} failed", listener, e);
+            }
+        }
+    }
+
+    // Returns {previous, published} so callers can detect the transition they caused
+    private ArtiferriumStatus[] update(UnaryOperator<ArtiferriumStatus> change) {
+        while (true) {
+            ArtiferriumStatus previous = status.get();
+            ArtiferriumStatus next = change.apply(previous);
+            if (status.compareAndSet(previous, next)) {
+                return new ArtiferriumStatus[] { previous, next };
+            }
+        }
+    }
+}
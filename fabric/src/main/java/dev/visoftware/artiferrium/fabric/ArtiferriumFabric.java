@@ -2,6 +2,8 @@ package dev.visoftware.artiferrium.fabric;
 
 import dev.visoftware.artiferrium.Artiferrium;
 import dev.visoftware.artiferrium.config.Config;
+import dev.visoftware.artiferrium.login.LoginTracer;
+import dev.visoftware.artiferrium.model.AccessDecision;
 import dev.visoftware.artiferrium.service.HeartbeatService;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
@@ -37,6 +39,7 @@ public class ArtiferriumFabric implements ModInitializer {
 
         ServerLifecycleEvents.SERVER_STARTING.register(server -> {
             currentServer = server;
+            Artiferrium.setCurrentServer(server);
             HeartbeatService.setPlayerCountProvider(() ->
                 currentServer != null ? currentServer.getPlayerList().getPlayers().size() : 0
             );
@@ -46,24 +49,35 @@ public class ArtiferriumFabric implements ModInitializer {
 
         ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
             currentServer = null;
+            Artiferrium.setCurrentServer(null);
             Artiferrium.shutdown();
         });
 
         // join handler for private server access check
         ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
+            ServerPlayer player = handler.getPlayer();
             if (Artiferrium.isPrivateServer()) {
-                ServerPlayer player = handler.getPlayer();
-                String playerUuid = player.getUUID().toString();
-                String playerName = player.getName().getString();
+                long checkStart = System.nanoTime();
+                AccessDecision decision = Artiferrium.checkPlayerAccess(player.getUUID(), handler.connection.getRemoteAddress());
+                LoginTracer.get().record(handler.connection, LoginTracer.Phase.ALLOWLIST, System.nanoTime() - checkStart);
 
-                if (!Artiferrium.isPlayerAllowed(playerUuid)) {
-                    LOGGER.warn("Access denied for player {} (UUID: {}) - Not in allowlist", playerName, playerUuid);
-                    handler.getPlayer().connection.disconnect(Component.literal(Config.get().getKickMessage()));
-                } else {
-                    LOGGER.info("Access granted for player {} (UUID: {}) - In allowlist", playerName, playerUuid);
+                if (!decision.isAllowed()) {
+                    LOGGER.warn("Access denied for player {} (UUID: {}) - {}",
+                        player.getName().getString(), player.getUUID(), decision.getReason());
+                    // Never deferred: a denied player must not get a single tick in the world
+                    handler.disconnect(Component.literal(Artiferrium.getKickMessage(decision)));
+                    return;
+                }
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Access granted for player {} (UUID: {}) - In allowlist",
+                        player.getName().getString(), player.getUUID());
                 }
             }
+            Artiferrium.onPlayerJoin(player.getUUID());
         });
+
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+            Artiferrium.onPlayerLeave(handler.getPlayer().getUUID()));
     }
 
     private void loadConfig() {
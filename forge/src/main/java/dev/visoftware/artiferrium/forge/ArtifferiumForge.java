@@ -2,6 +2,8 @@ package dev.visoftware.artiferrium.forge;
 
 import dev.visoftware.artiferrium.Artiferrium;
 import dev.visoftware.artiferrium.config.Config;
+import dev.visoftware.artiferrium.login.LoginTracer;
+import dev.visoftware.artiferrium.model.AccessDecision;
 import dev.visoftware.artiferrium.service.HeartbeatService;
 import dev.architectury.platform.forge.EventBuses;
 import net.minecraft.network.chat.Component;
@@ -44,6 +46,7 @@ public class ArtifferiumForge {
     @SubscribeEvent
     public void onServerStarting(ServerStartingEvent event) {
         currentServer = event.getServer();
+        Artiferrium.setCurrentServer(currentServer);
         HeartbeatService.setPlayerCountProvider(() ->
             currentServer != null ? currentServer.getPlayerList().getPlayers().size() : 0
         );
@@ -54,23 +57,42 @@ public class ArtifferiumForge {
     @SubscribeEvent
     public void onServerStopping(ServerStoppingEvent event) {
         currentServer = null;
+        Artiferrium.setCurrentServer(null);
         Artiferrium.shutdown();
     }
 
     @SubscribeEvent
     public void onPlayerLogin(PlayerEvent.PlayerLoggedInEvent event) {
         if (Artiferrium.isPrivateServer()) {
-            String playerUuid = event.getEntity().getUUID().toString();
-            String playerName = event.getEntity().getName().getString();
-            if (!Artiferrium.isPlayerAllowed(playerUuid)) {
-                LOGGER.warn("Access denied for player {} (UUID: {}) - Not in allowlist", playerName, playerUuid);
-                if (event.getEntity() instanceof ServerPlayer serverPlayer) {
-                    serverPlayer.connection.disconnect(Component.literal(Config.get().getKickMessage()));
+            long checkStart = System.nanoTime();
+            ServerPlayer serverPlayer = event.getEntity() instanceof ServerPlayer player ? player : null;
+            AccessDecision decision = serverPlayer != null
+                ? Artiferrium.checkPlayerAccess(serverPlayer.getUUID(), serverPlayer.connection.connection.getRemoteAddress())
+                : Artiferrium.checkPlayerAccess(event.getEntity().getUUID(), null);
+            if (serverPlayer != null) {
+                LoginTracer.get().record(serverPlayer.connection.connection, LoginTracer.Phase.ALLOWLIST,
+                    System.nanoTime() - checkStart);
+            }
+            if (!decision.isAllowed()) {
+                LOGGER.warn("Access denied for player {} (UUID: {}) - {}",
+                    event.getEntity().getName().getString(), event.getEntity().getUUID(), decision.getReason());
+                if (serverPlayer != null) {
+                    // Never deferred: a denied player must not get a single tick in the world
+                    serverPlayer.connection.disconnect(Component.literal(Artiferrium.getKickMessage(decision)));
                 }
-            } else {
-                LOGGER.info("Access granted for player {} (UUID: {}) - In allowlist", playerName, playerUuid);
+                return;
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Access granted for player {} (UUID: {}) - In allowlist",
+                    event.getEntity().getName().getString(), event.getEntity().getUUID());
             }
         }
+        Artiferrium.onPlayerJoin(event.getEntity().getUUID());
+    }
+
+    @SubscribeEvent
+    public void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        Artiferrium.onPlayerLeave(event.getEntity().getUUID());
     }
 
     private void loadConfig() {